@@ -0,0 +1,125 @@
+package com.cryptocurrency.demo.benchmarks;
+
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import com.cryptocurrency.demo.repositories.CandleRepository;
+import com.cryptocurrency.demo.repositories.CurrencyRepository;
+import com.cryptocurrency.demo.repositories.PriceRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Read-only repository stand-in holding generated prices in memory,
+ * so benchmarks measure the application code rather than the database.
+ * <p>Only the repository methods used by the benchmarked paths are implemented,
+ * any other method throws {@link UnsupportedOperationException}.
+ */
+public class InMemoryStore {
+
+    private static final Comparator<Price> PRICE_ORDER = Comparator
+            .comparingDouble(Price::getPrice)
+            .thenComparing(Price::getTmsp);
+
+    private final Map<String, Price[]> sortedPrices = new LinkedHashMap<>();
+    private final Map<String, PriceSummary> summaries = new LinkedHashMap<>();
+
+    /**
+     * Generates <i>historySize</i> prices spread evenly over <i>pairs</i> pairs
+     * named <b>CUR0</b>, <b>CUR1</b>, ... with a random walk of prices.
+     *
+     * @param historySize total number of prices.
+     * @param pairs number of pairs.
+     * @param seed seed of the random walk, the same seed gives the same prices.
+     * @return store with the generated prices.
+     */
+    public static InMemoryStore generate(int historySize, int pairs, long seed) {
+        InMemoryStore store = new InMemoryStore();
+        Random random = new Random(seed);
+        for (int pair = 0; pair < pairs; pair++) {
+            Price[] prices = new Price[historySize / pairs + (pair < historySize % pairs ? 1 : 0)];
+            double value = 1000;
+            for (int i = 0; i < prices.length; i++) {
+                value = Math.max(0.01, value + random.nextGaussian());
+                prices[i] = new Price(1_600_000_000L + i * 60L, Math.round(value * 100) / 100.0);
+            }
+            store.summaries.put(nameOf(pair), PriceSummary.of(Arrays.asList(prices)));
+            Arrays.sort(prices, PRICE_ORDER);
+            store.sortedPrices.put(nameOf(pair), prices);
+        }
+        return store;
+    }
+
+    public static String nameOf(int pair) {
+        return "CUR" + pair;
+    }
+
+    public CurrencyRepository currencyRepository() {
+        return stub(CurrencyRepository.class, Map.of(
+                "existsByCurrName1", args -> summaries.containsKey((String) args[0]),
+                "findMinByCurrName1", args -> findSummary((String) args[0]),
+                "findMaxByCurrName1", args -> findSummary((String) args[0]),
+                "findCountByCurrName1", args -> findSummary((String) args[0]),
+                "streamAllSummaries", args -> summaries.keySet().stream()
+                        .map(name -> findSummary(name).orElseThrow())));
+    }
+
+    public PriceRepository priceRepository() {
+        return stub(PriceRepository.class, Map.of(
+                "findByCurrName1OrderByPriceAscTmspAsc", args -> page(
+                        sortedPrices.get((String) args[0]), 0, (Pageable) args[1]),
+                "findByCurrName1SortedAfter", args -> {
+                    Price[] prices = sortedPrices.get((String) args[0]);
+                    int from = Arrays.binarySearch(prices, new Price((Long) args[2], (Double) args[1]), PRICE_ORDER);
+                    return page(prices, from < 0 ? -from - 1 : from + 1, (Pageable) args[3]);
+                }));
+    }
+
+    public CandleRepository candleRepository() {
+        return stub(CandleRepository.class, Map.of());
+    }
+
+    /**
+     * Returns proxy of the interface answering the given methods by name.
+     *
+     * @param type interface to implement.
+     * @param methods answers of the methods by name.
+     * @return proxy implementing <i>type</i>.
+     */
+    public static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class)
+                        return method.getName().equals("equals") ? proxy == args[0]
+                                : method.getName().equals("hashCode") ? System.identityHashCode(proxy)
+                                : type.getSimpleName() + " stub";
+                    Function<Object[], Object> answer = methods.get(method.getName());
+                    if (answer == null)
+                        throw new UnsupportedOperationException(method.getName());
+                    return answer.apply(args);
+                }));
+    }
+
+    private Optional<CryptoCurrency> findSummary(String currName1) {
+        return Optional.ofNullable(summaries.get(currName1)).map(summary -> {
+            CryptoCurrency currency = new CryptoCurrency(currName1, "USD");
+            currency.setSummary(summary);
+            return currency;
+        });
+    }
+
+    private static List<Price> page(Price[] prices, int from, Pageable pageable) {
+        int start = (int) Math.min(prices.length, from + pageable.getOffset());
+        int end = Math.min(prices.length, start + pageable.getPageSize());
+        return Arrays.asList(Arrays.copyOfRange(prices, start, end));
+    }
+}
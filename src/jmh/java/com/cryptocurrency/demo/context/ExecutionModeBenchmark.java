@@ -0,0 +1,179 @@
+package com.cryptocurrency.demo.context;
+
+import com.cryptocurrency.demo.benchmarks.InMemoryStore;
+import com.cryptocurrency.demo.controllers.CryptoController;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.services.CurrencyService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of request handling with and without <b>spring.threads.virtual.enabled</b>.
+ * <p>Starts the embedded Tomcat with {@link CryptoController} over a {@link CurrencyService}
+ * whose lookups block for <i>blockingMillis</i> like a MongoDB query, then sends bursts of
+ * <i>requests</i> concurrent <b>/cryptocurrencies/minprice</b> requests. On platform threads
+ * Tomcat handles at most <b>server.tomcat.threads.max</b> (200) of them at once, the rest wait
+ * in its queue. On virtual threads every request runs on its own thread.
+ * <p>Besides the time of a burst, the {@link Peaks} counters report the peak number of requests
+ * in the controller at once and of live platform threads. Memory is compared with <i>-prof gc</i>,
+ * which the benchmark profile passes by default.
+ * <p>JMH adds event counters of all measurement iterations up, so there is one long measurement
+ * iteration and the counters are its peaks.
+ * <p>Ingestion is left out: its concurrency is bounded by <b>ingestion.parallelism</b>
+ * with either kind of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 1, time = 10)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    static final AtomicInteger inProgress = new AtomicInteger();
+    static final AtomicInteger peak = new AtomicInteger();
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param({"1000", "4000"})
+    int requests;
+
+    @Param({"10"})
+    long blockingMillis;
+
+    ServletWebServerApplicationContext context;
+    ExecutorService clientExecutor = Executors.newFixedThreadPool(2);
+    HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(clientExecutor)
+            .build();
+    HttpRequest request;
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Setup
+    public void setUp() {
+//        arguments, as default properties lose to spring.threads.virtual.enabled of application.properties
+        context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(LoadTestApplication.class)
+                .run("--server.port=0",
+                        "--server.tomcat.accept-count=" + requests,
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--blocking-millis=" + blockingMillis,
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=warn");
+        request = HttpRequest.newBuilder(URI.create(String.format(
+                "http://127.0.0.1:%d/cryptocurrencies/minprice?name=BTC", context.getWebServer().getPort()))).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        clientExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void burst(Peaks peaks) {
+        peak.set(0);
+        threads.resetPeakThreadCount();
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[requests];
+        for (int i = 0; i < requests; i++)
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(response -> {
+                        if (response.statusCode() != 200)
+                            throw new IllegalStateException("Request failed with status " + response.statusCode());
+                    });
+        CompletableFuture.allOf(responses).join();
+        peaks.concurrency = Math.max(peaks.concurrency, peak.get());
+        peaks.platformThreads = Math.max(peaks.platformThreads, threads.getPeakThreadCount());
+    }
+
+    /**
+     * Peaks of the measured iteration.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Peaks {
+        /**
+         * Most requests inside the controller at once.
+         */
+        public int concurrency;
+        /**
+         * Most live platform threads, JMH and HTTP client threads included.
+         */
+        public int platformThreads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            concurrency = 0;
+            platformThreads = 0;
+        }
+    }
+
+    /**
+     * Just the web stack with {@link CryptoController}, Tomcat is switched
+     * to virtual threads by {@link EmbeddedWebServerFactoryCustomizerAutoConfiguration}.
+     */
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class})
+    static class LoadTestApplication {
+
+        @Bean
+        CryptoController cryptoController(Environment environment) {
+            long blockingMillis = environment.getRequiredProperty("blocking-millis", Long.class);
+            Price price = new Price(1L, 1.0);
+            return new CryptoController(InMemoryStore.stub(CurrencyService.class, Map.of(
+                    "getMinPriceByCurrName1", args -> {
+                        peak.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+                        try {
+                            Thread.sleep(blockingMillis);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            inProgress.decrementAndGet();
+                        }
+                        return Optional.of(price);
+                    })));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.cryptocurrency.demo.controllers;
+
+import com.cryptocurrency.demo.benchmarks.InMemoryStore;
+import com.cryptocurrency.demo.context.IngestionProperties;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.services.CurrencyServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Endpoints of {@link CryptoController} called directly, without the servlet stack,
+ * over an in-memory price history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CryptoControllerBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    int historySize;
+
+    @Param({"1", "100"})
+    int pairs;
+
+    CryptoController controller;
+    String name = InMemoryStore.nameOf(0);
+
+    @Setup
+    public void setUp() {
+        InMemoryStore store = InMemoryStore.generate(historySize, pairs, 42);
+        controller = new CryptoController(new CurrencyServiceImpl(store.currencyRepository(),
+                store.priceRepository(), store.candleRepository(), event -> { }, new IngestionProperties(),
+                new NoOpCacheManager()));
+    }
+
+    @Benchmark
+    public ResponseEntity<List<Price>> getPages() {
+        return controller.getPages(name, 0, 10, null, null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<Price>> getPagesAfter() {
+        return controller.getPages(name, 0, 10, "1000.0,0", null, null);
+    }
+
+    @Benchmark
+    public void getCSVReport() throws IOException {
+        controller.getCSVReport().getBody().writeTo(OutputStream.nullOutputStream());
+    }
+}
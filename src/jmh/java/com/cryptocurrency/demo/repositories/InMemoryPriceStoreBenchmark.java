@@ -0,0 +1,92 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.benchmarks.InMemoryStore;
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.cryptocurrency.demo.entities.Price;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends to and price-ordered reads from a history of {@link InMemoryPriceStore}.
+ * <p><i>append</i> adds a batch of <i>batchSize</i> newer prices, the ingestion hot path.
+ * Its cost should grow with the batch, not with <i>historySize</i>.
+ * <i>getPageAfter</i> reads a page in price order from a history built by appending batches,
+ * so the price index is split into several runs. MongoDB writes go to a stub.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InMemoryPriceStoreBenchmark {
+
+    static final String NAME = "CUR0";
+
+    @Param({"100000", "1000000"})
+    int historySize;
+
+    @Param({"10", "1000"})
+    int batchSize;
+
+    InMemoryPriceStore store;
+    Random random = new Random(42);
+    long nextTmsp;
+    Price middle;
+
+    /**
+     * Fills the history before every iteration, so appends of one iteration
+     * do not make the history of the next one larger.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        PriceRepository priceRepository = InMemoryStore.stub(PriceRepository.class,
+                Map.of("insertIgnoringDuplicates", args -> 0L));
+        store = new InMemoryPriceStore(priceRepository, null, Duration.ofSeconds(1));
+        nextTmsp = 0;
+        while (nextTmsp < historySize)
+            store.insertIgnoringDuplicates(batch());
+        middle = store.findByCurrName1OrderByPriceAscTmspAsc(NAME, PageRequest.of(historySize / 20, 10)).get(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        store.close();
+    }
+
+    @Benchmark
+    public long append() {
+        return store.insertIgnoringDuplicates(batch());
+    }
+
+    @Benchmark
+    public List<Price> getPageAfter() {
+        return store.findByCurrName1SortedAfter(NAME, middle.getPrice(), middle.getTmsp(), PageRequest.of(0, 10));
+    }
+
+    private List<CurrencyPrice> batch() {
+        List<CurrencyPrice> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++)
+            batch.add(new CurrencyPrice(NAME, "USD", new Price(nextTmsp++, 1000 + random.nextInt(100_000) / 100.0)));
+        return batch;
+    }
+}
@@ -0,0 +1,80 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.benchmarks.InMemoryStore;
+import com.cryptocurrency.demo.context.IngestionProperties;
+import com.cryptocurrency.demo.entities.Price;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of {@link CurrencyServiceImpl} over an in-memory price history.
+ * <p>Caching is not applied, every call reaches the repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CurrencyServiceBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    int historySize;
+
+    @Param({"1", "100"})
+    int pairs;
+
+    CurrencyService currencyService;
+    String name = InMemoryStore.nameOf(0);
+    Price middle;
+    int lastPage;
+
+    @Setup
+    public void setUp() {
+        InMemoryStore store = InMemoryStore.generate(historySize, pairs, 42);
+        currencyService = new CurrencyServiceImpl(store.currencyRepository(), store.priceRepository(),
+                store.candleRepository(), event -> { }, new IngestionProperties(), new NoOpCacheManager());
+        int count = historySize / pairs;
+        lastPage = count / 10;
+        middle = currencyService.getPricesByCurrName1Sorted(name, lastPage / 2, 10).orElseThrow().get(0);
+    }
+
+    @Benchmark
+    public Optional<Price> getMinPrice() {
+        return currencyService.getMinPriceByCurrName1(name);
+    }
+
+    @Benchmark
+    public Optional<Price> getMaxPrice() {
+        return currencyService.getMaxPriceByCurrName1(name);
+    }
+
+    @Benchmark
+    public Optional<List<Price>> getFirstPage() {
+        return currencyService.getPricesByCurrName1Sorted(name, 0, 10);
+    }
+
+    @Benchmark
+    public Optional<List<Price>> getLastPage() {
+        return currencyService.getPricesByCurrName1Sorted(name, lastPage, 10);
+    }
+
+    @Benchmark
+    public Optional<List<Price>> getPageAfter() {
+        return currencyService.getPricesByCurrName1SortedAfter(name, middle, 10);
+    }
+}
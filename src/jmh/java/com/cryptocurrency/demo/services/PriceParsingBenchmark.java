@@ -0,0 +1,68 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.benchmarks.InMemoryStore;
+import com.cryptocurrency.demo.context.IngestionProperties;
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.google.gson.stream.JsonReader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a cex.io <i>price_stats</i> response by {@link ExternalOperationsServiceImpl}.
+ * <p>Parsed batches are handed to a {@link CurrencyService} stub, nothing is stored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PriceParsingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int responseSize;
+
+    ExternalOperationsServiceImpl operationsService;
+    byte[] response;
+
+    @Setup
+    public void setUp() {
+        BulkWriteReport report = new BulkWriteReport(List.of(new CryptoCurrency("BTC", "USD")), List.of());
+        CurrencyService currencyService = InMemoryStore.stub(CurrencyService.class,
+                Map.of("bulkAppendPrices", args -> report));
+        operationsService = new ExternalOperationsServiceImpl(
+                currencyService, null, null, new IngestionProperties(), new SimpleMeterRegistry());
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < responseSize; i++)
+            json.append(i == 0 ? "" : ", ")
+                    .append("{\"tmsp\": ").append(1_600_000_000L + i * 60L)
+                    .append(", \"price\": \"").append(1000 + i % 997 / 100.0).append("\"}");
+        response = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CryptoCurrency parse() throws IOException {
+        try (JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(response), StandardCharsets.UTF_8))) {
+            return operationsService.appendInBatches("BTC", "USD", reader);
+        }
+    }
+}
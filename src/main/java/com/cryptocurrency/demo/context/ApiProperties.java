@@ -0,0 +1,31 @@
+package com.cryptocurrency.demo.context;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the <b>/cryptocurrencies</b> endpoints.
+ */
+@Data
+@ConfigurationProperties(prefix = "api")
+public class ApiProperties {
+    /**
+     * How requests wait for the database.
+     */
+    private Mode mode = Mode.BLOCKING;
+
+    public enum Mode {
+        /**
+         * Request thread waits for every query.
+         */
+        BLOCKING,
+        /**
+         * Handlers return {@link reactor.core.publisher.Mono} and {@link reactor.core.publisher.Flux}
+         * on Spring MVC, the request thread is released while queries run on the reactive driver.
+         * Not a non-blocking stack, Tomcat still reads and writes with blocking I/O.
+         *
+         * @see ReactiveConfig
+         */
+        REACTIVE
+    }
+}
@@ -1,15 +1,87 @@
 package com.cryptocurrency.demo.context;
 
+import com.cryptocurrency.demo.repositories.InMemoryPriceStore;
+import com.cryptocurrency.demo.repositories.PriceRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
 @Configuration
 @PropertySource("classpath:application.properties")
 @ComponentScan({"com.cryptocurrency.demo.controllers", "com.cryptocurrency.demo.services"})
 @EnableMongoRepositories({"com.cryptocurrency.demo.repositories"})
 @EntityScan({"com.cryptocurrency.demo.entities"})
+@EnableConfigurationProperties({IngestionProperties.class, StreamingProperties.class, StorageProperties.class,
+        ApiProperties.class})
+@EnableCaching
+@Import(ReactiveConfig.class)
 public class Config {
-}
\ No newline at end of file
+
+    /**
+     * {@link HttpClient} shared by all requests to the price API,
+     * so connections are kept alive and reused between fetches.
+     *
+     * @param properties ingestion settings.
+     * @return shared {@link HttpClient}.
+     */
+    @Bean
+    public HttpClient httpClient(IngestionProperties properties) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Executor running fetches of different pairs in parallel.
+     * Its size bounds the number of pairs fetched at the same time.
+     * <p>With <b>spring.threads.virtual.enabled=true</b> its threads are virtual, so a fetch
+     * blocked on the API or MongoDB does not hold an operating system thread.
+     * The same property makes Spring Boot run Tomcat requests on virtual threads.
+     *
+     * @param properties ingestion settings.
+     * @param environment environment the threading is read from.
+     * @return ingestion executor.
+     * @see Threading#VIRTUAL
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService ingestionExecutor(IngestionProperties properties, Environment environment) {
+        ThreadFactory factory = Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual().name("ingestion-", 0).factory()
+                : Thread.ofPlatform().name("ingestion-", 0).factory();
+        return Executors.newFixedThreadPool(properties.getParallelism(), factory);
+    }
+
+    /**
+     * Price store keeping histories in memory, used instead of
+     * {@link PriceRepository} when <b>storage.mode=memory</b>.
+     *
+     * @param priceRepository repository the prices are written to in the background.
+     * @param mongoTemplate template the histories are loaded with on startup.
+     * @return in-memory price store.
+     * @see StorageProperties
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "storage", name = "mode", havingValue = "memory")
+    public InMemoryPriceStore inMemoryPriceStore(PriceRepository priceRepository, MongoTemplate mongoTemplate) {
+        return new InMemoryPriceStore(priceRepository, mongoTemplate);
+    }
+}
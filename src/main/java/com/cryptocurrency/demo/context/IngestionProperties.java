@@ -0,0 +1,119 @@
+package com.cryptocurrency.demo.context;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of fetching prices from <a href="https://cex.io">cex.io</a>.
+ */
+@Data
+@ConfigurationProperties(prefix = "ingestion")
+public class IngestionProperties {
+    /**
+     * Base url of the cex.io REST API.
+     */
+    private String apiUrl = "https://cex.io/api";
+    /**
+     * Timeout of establishing a connection to the API.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    /**
+     * Timeout of a single API request.
+     */
+    private Duration readTimeout = Duration.ofSeconds(30);
+    /**
+     * Max number of pairs fetched at the same time.
+     */
+    private int parallelism = 4;
+    /**
+     * Time span for which prices are fetched, in hours.
+     */
+    private long lastHours = 24;
+    /**
+     * Max number of prices fetched in one request.
+     */
+    private long maxRespArrSize = 100;
+    /**
+     * Max number of parsed prices appended to the database at once,
+     * also max number of documents in one bulk write.
+     */
+    private int batchSize = 1000;
+    /**
+     * Whether a bulk write stops at the first failed document of a batch.
+     */
+    private boolean bulkOrdered = false;
+    /**
+     * Whether pairs are fetched at all. If disabled, there is no initial load on startup
+     * either and only prices already in the database are served.
+     */
+    private boolean schedulingEnabled = true;
+    /**
+     * Refresh interval of pairs which do not set their own.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(5);
+    /**
+     * Max random deviation of a refresh delay, as a fraction of the delay.
+     */
+    private double refreshJitter = 0.1;
+    /**
+     * Upper bound of the delay between retries of a failing pair.
+     */
+    private Duration maxBackoff = Duration.ofMinutes(30);
+    /**
+     * Pairs to fetch.
+     */
+    private List<Pair> pairs = new ArrayList<>();
+
+    /**
+     * Returns request body asking for {@link #lastHours} and {@link #maxRespArrSize}.
+     *
+     * @return json request body.
+     */
+    public String requestBody() {
+        return "{\"lastHours\": " + lastHours + ", \"maxRespArrSize\": " + maxRespArrSize + "}";
+    }
+
+    /**
+     * Returns refresh interval of the pair, falling back to {@link #refreshInterval}.
+     *
+     * @param pair configured pair.
+     * @return refresh interval of the <i>pair</i>.
+     */
+    public Duration refreshIntervalOf(Pair pair) {
+        return pair.getRefreshInterval() != null ? pair.getRefreshInterval() : refreshInterval;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pair {
+        /**
+         * Primary currency name.
+         */
+        private String symbol1;
+        /**
+         * Secondary currency name, the currency to buy <i>symbol1</i> with.
+         */
+        private String symbol2 = "USD";
+        /**
+         * Refresh interval of this pair. Optional.
+         */
+        private Duration refreshInterval;
+
+        public Pair(String symbol1, String symbol2) {
+            this.symbol1 = symbol1;
+            this.symbol2 = symbol2;
+        }
+
+        @Override
+        public String toString() {
+            return symbol1 + '/' + symbol2;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.cryptocurrency.demo.context;
+
+import com.cryptocurrency.demo.controllers.ReactiveCryptoController;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/**
+ * Reactive MongoDB client, template and repositories behind {@link ReactiveCryptoController},
+ * created only when <b>api.mode=reactive</b>.
+ * <p>Their auto-configurations are excluded in <b>application.properties</b>, so in the default
+ * <b>api.mode=blocking</b> there is no second MongoDB client with its own connection pool.
+ * The client and template are imported here instead, the repositories are enabled
+ * for the repositories package only.
+ * <p>The reactive variant still runs on Spring MVC and Tomcat, it is not a non-blocking stack:
+ * handlers return {@link reactor.core.publisher.Mono} and {@link reactor.core.publisher.Flux},
+ * which MVC completes asynchronously. The request thread is released while MongoDB is queried,
+ * but reading requests and writing responses stay blocking servlet I/O.
+ *
+ * @see ApiProperties.Mode#REACTIVE
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "api", name = "mode", havingValue = "reactive")
+@EnableReactiveMongoRepositories({"com.cryptocurrency.demo.repositories"})
+@Import({MongoReactiveAutoConfiguration.class, MongoReactiveDataAutoConfiguration.class})
+public class ReactiveConfig {
+}
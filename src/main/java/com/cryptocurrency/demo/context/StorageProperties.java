@@ -0,0 +1,27 @@
+package com.cryptocurrency.demo.context;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of where price histories are read from.
+ */
+@Data
+@ConfigurationProperties(prefix = "storage")
+public class StorageProperties {
+    /**
+     * Store answering price queries.
+     */
+    private Mode mode = Mode.MONGO;
+
+    public enum Mode {
+        /**
+         * Every query goes to MongoDB.
+         */
+        MONGO,
+        /**
+         * Histories are kept in process memory and written to MongoDB in the background.
+         */
+        MEMORY
+    }
+}
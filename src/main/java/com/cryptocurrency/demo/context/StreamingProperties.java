@@ -0,0 +1,45 @@
+package com.cryptocurrency.demo.context;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of streaming new prices to subscribers.
+ */
+@Data
+@ConfigurationProperties(prefix = "streaming")
+public class StreamingProperties {
+    /**
+     * Max number of updates waiting to be sent to one subscriber.
+     */
+    private int bufferSize = 64;
+    /**
+     * What to do when the buffer of a subscriber is full.
+     */
+    private Overflow overflow = Overflow.DROP_OLDEST;
+    /**
+     * Time after which a subscription is closed, clients are expected to reconnect.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+    /**
+     * Number of threads sending updates to subscribers.
+     */
+    private int senderThreads = 2;
+    /**
+     * Max number of open subscriptions, new clients get status 503 beyond it.
+     */
+    private int maxSubscribers = 1000;
+
+    public enum Overflow {
+        /**
+         * Drop the oldest waiting update and keep the subscriber.
+         */
+        DROP_OLDEST,
+        /**
+         * Close the subscription of a subscriber that does not keep up.
+         */
+        DISCONNECT
+    }
+}
@@ -0,0 +1,21 @@
+package com.cryptocurrency.demo.context;
+
+import com.cryptocurrency.demo.controllers.ConditionalGetInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@RequiredArgsConstructor
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns("/cryptocurrencies/**", "/cryptocurrencies")
+                .excludePathPatterns("/cryptocurrencies/stream");
+    }
+}
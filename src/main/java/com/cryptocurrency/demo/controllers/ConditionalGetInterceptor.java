@@ -0,0 +1,57 @@
+package com.cryptocurrency.demo.controllers;
+
+import com.cryptocurrency.demo.services.DataVersions;
+import com.cryptocurrency.demo.services.DataVersions.Version;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Answers conditional GET requests to {@link CryptoController} from {@link DataVersions}.
+ * <p>Responses get <b>ETag</b> and <b>Last-Modified</b> of the data they are built from:
+ * of the currency in the <i>name</i> or <i>names</i> parameter, or of all currencies.
+ * If <b>If-None-Match</b> or <b>If-Modified-Since</b> show the client has that data already,
+ * 304 is sent and the controller is not invoked at all.
+ */
+@RequiredArgsConstructor
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final DataVersions dataVersions;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()))
+            return true;
+        Version version = versionOf(request);
+        return !new ServletWebRequest(request, response)
+                .checkNotModified(dataVersions.eTagOf(version), version.getLastModified().toEpochMilli());
+    }
+
+    /**
+     * Returns version of the data the request reads.
+     *
+     * @param request incoming request.
+     * @return version of the requested currencies, or of all of them if none is named.
+     */
+    private Version versionOf(HttpServletRequest request) {
+        String name = request.getParameter("name");
+        if (name != null)
+            return dataVersions.of(List.of(name));
+        String[] names = request.getParameterValues("names");
+        if (names != null)
+            return dataVersions.of(Arrays.stream(names)
+                    .flatMap(value -> Arrays.stream(value.split(",")))
+                    .map(String::trim)
+                    .collect(Collectors.toList()));
+        return dataVersions.ofAll();
+    }
+}
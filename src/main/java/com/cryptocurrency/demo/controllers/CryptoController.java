@@ -1,63 +1,124 @@
 package com.cryptocurrency.demo.controllers;
 
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CandleInterval;
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.PairSummary;
 import com.cryptocurrency.demo.entities.Price;
-import com.cryptocurrency.demo.exceptions.CurrencyException;
+import com.cryptocurrency.demo.exceptions.PriceException;
 import com.cryptocurrency.demo.services.CurrencyService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import static com.cryptocurrency.demo.controllers.CryptoRequests.*;
+
+/**
+ * Endpoints of the <b>/cryptocurrencies</b> API waiting for {@link CurrencyService}
+ * on the request thread.
+ * <p>Active unless <b>api.mode</b> is <b>reactive</b>.
+ *
+ * @see ReactiveCryptoController
+ */
 @RequiredArgsConstructor
 @RestController
+@ConditionalOnProperty(prefix = "api", name = "mode", havingValue = "blocking", matchIfMissing = true)
 @RequestMapping("/cryptocurrencies")
 public class CryptoController {
 
     private final CurrencyService currencyService;
 
     /**
-     * <p>/cryptocurrencies/minprice?name=<i>name</i> GET endpoint.
-     * <p>Get min price of the cryptocurrency with name <i>name</i>
-     * <p>Throws {@link ResponseStatusException} if currency with name <i>name</i> does not exist.
+     * <p>/cryptocurrencies/minprice?name=<i>name</i>&from=<i>from</i>&to=<i>to</i> GET endpoint.
+     * <p>Get min price of the cryptocurrency with name <i>name</i>,
+     * only among prices from <i>from</i> to <i>to</i> if any of them is given.
+     * <p>Throws {@link ResponseStatusException} with status 400 if currency with name <i>name</i>
+     * does not exist or the range is malformed, or with status 404 if it has no prices.
      *
      * @param name name cryptocurrency name.
+     * @param from start of the time range, inclusive. Optional.
+     * @param to end of the time range, inclusive. Optional.
      * @return min {@link Price} for this cryptocurrency.
      * @see CurrencyService#getMinPriceByCurrName1(String)
+     * @see CurrencyService#getMinPriceByCurrName1(String, long, long)
      */
     @GetMapping("/minprice")
-    public ResponseEntity<Price> getMinPrice(@RequestParam String name) {
-        currencyCheck(name);
-        return ResponseEntity.ok(currencyService.getMinPriceByCurrName1(name));
+    public ResponseEntity<Price> getMinPrice(@RequestParam String name,
+                                             @RequestParam(required = false) Long from,
+                                             @RequestParam(required = false) Long to) {
+        if (from == null && to == null)
+            return ResponseEntity.ok(orNotFound(name, () -> currencyService.getMinPriceByCurrName1(name)));
+        long start = rangeStart(from, to);
+        long end = rangeEnd(to);
+        return ResponseEntity.ok(orNotFound(name, () -> currencyService.getMinPriceByCurrName1(name, start, end)));
     }
 
     /**
-     * <p>/cryptocurrencies/maxprice?name=<i>name</i> GET endpoint.
-     * <p>Get max price of the cryptocurrency with name <i>name</i>
-     * <p>Throws {@link ResponseStatusException} if currency with name <i>name</i> does not exist.
+     * <p>/cryptocurrencies/maxprice?name=<i>name</i>&from=<i>from</i>&to=<i>to</i> GET endpoint.
+     * <p>Get max price of the cryptocurrency with name <i>name</i>,
+     * only among prices from <i>from</i> to <i>to</i> if any of them is given.
+     * <p>Throws {@link ResponseStatusException} with status 400 if currency with name <i>name</i>
+     * does not exist or the range is malformed, or with status 404 if it has no prices.
      *
      * @param name cryptocurrency name.
+     * @param from start of the time range, inclusive. Optional.
+     * @param to end of the time range, inclusive. Optional.
      * @return max {@link Price} for this cryptocurrency.
      * @see CurrencyService#getMaxPriceByCurrName1(String)
+     * @see CurrencyService#getMaxPriceByCurrName1(String, long, long)
      */
     @GetMapping("/maxprice")
-    public ResponseEntity<Price> getMaxPrice(@RequestParam String name) {
-        currencyCheck(name);
-        return ResponseEntity.ok(currencyService.getMaxPriceByCurrName1(name));
+    public ResponseEntity<Price> getMaxPrice(@RequestParam String name,
+                                             @RequestParam(required = false) Long from,
+                                             @RequestParam(required = false) Long to) {
+        if (from == null && to == null)
+            return ResponseEntity.ok(orNotFound(name, () -> currencyService.getMaxPriceByCurrName1(name)));
+        long start = rangeStart(from, to);
+        long end = rangeEnd(to);
+        return ResponseEntity.ok(orNotFound(name, () -> currencyService.getMaxPriceByCurrName1(name, start, end)));
+    }
+
+    /**
+     * /cryptocurrencies/summary?names=<i>name1</i>,<i>name2</i>,... GET endpoint.
+     * <p>Get min, max, count and latest price of every cryptocurrency with one of the names
+     * in one request. Unknown names are skipped.
+     * <p>Throws {@link ResponseStatusException} if no name or more than
+     * {@value CryptoRequests#MAX_SUMMARY_NAMES} names are given.
+     *
+     * @param names cryptocurrency names separated with commas.
+     * @return {@link List} of {@link PairSummary} in the order of <i>names</i>.
+     * @see CurrencyService#getSummariesByCurrName1(List)
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<List<PairSummary>> getSummaries(@RequestParam List<String> names) {
+        return ResponseEntity.ok(currencyService.getSummariesByCurrName1(summaryNames(names)));
     }
 
     /**
-     * /cryptocurrencies?name=<i>name</i>&page=<i>page</i>&size=<i>size</i> GET endpoint.
+     * /cryptocurrencies?name=<i>name</i>&page=<i>page</i>&size=<i>size</i>&after=<i>after</i>&from=<i>from</i>&to=<i>to</i>
+     * GET endpoint.
      * <p>Get page number <i>page</i> as if the page size was <i>size</i>.
-     * <p>Throws {@link ResponseStatusException} if currency with name <i>name</i> does not exist.
+     * <p>If <i>after</i> is given, returns <i>size</i> prices following it instead,
+     * which stays cheap for deep pages.
+     * <p>If <i>from</i> or <i>to</i> is given, only prices in that time range are listed.
+     * <p>Throws {@link ResponseStatusException} if currency with name <i>name</i> does not exist,
+     * <i>after</i> or the range is malformed.
      *
      * @param name cryptocurrency name.
      * @param page page number for the {@link Price} list. Default is <b>0</b>.<br>
@@ -65,60 +126,117 @@ public class CryptoController {
      *             Changed to <b>max value</b> if <b>{@code page>{number of possible pages}}</b>.
      * @param size page size for the {@link Price} list. Default is 10.<br>
      *             Changed to <b>10</b> if <b>{@code size<=0}</b>.
+     * @param after last price of the previous page as <b>price,tmsp</b>. Optional.
+     * @param from start of the time range, inclusive. Optional.
+     * @param to end of the time range, inclusive. Optional.
      * @return page number <i>page</i> as if the page size was <i>size</i>.
-     * @see CurrencyService#getPricesByCurrName1Sorted(String)
+     * @see CurrencyService#getPricesByCurrName1Sorted(String, int, int)
+     * @see CurrencyService#getPricesByCurrName1SortedAfter(String, Price, int)
+     * @see CurrencyService#getPricesByCurrName1Sorted(String, long, long, int, int)
+     * @see CurrencyService#getPricesByCurrName1SortedAfter(String, long, long, Price, int)
      */
     @GetMapping
     public ResponseEntity<List<Price>> getPages(@RequestParam String name,
                                          @RequestParam(defaultValue = "0") int page,
-                                         @RequestParam(defaultValue = "10") int size) {
-        currencyCheck(name);
-        List<Price> prices = currencyService.getPricesByCurrName1Sorted(name);
-        size = size <= 0 ? 10 : size;
-        page = page < 0 ? 0 : page * size > prices.size() - 1 ? (prices.size() - 1) / size : page;
-        int start = page * size;
-        int end = start + size > prices.size() - 1 ? prices.size() : start + size;
-        return ResponseEntity.ok(prices.subList(start, end));
+                                         @RequestParam(defaultValue = "10") int size,
+                                         @RequestParam(required = false) String after,
+                                         @RequestParam(required = false) Long from,
+                                         @RequestParam(required = false) Long to) {
+        int pageSize = size <= 0 ? 10 : size;
+        int pageNumber = Math.max(page, 0);
+        Price afterPrice = after != null ? parsePrice(after) : null;
+        if (from == null && to == null)
+            return ResponseEntity.ok(orNotFound(name, () -> afterPrice != null
+                    ? currencyService.getPricesByCurrName1SortedAfter(name, afterPrice, pageSize)
+                    : currencyService.getPricesByCurrName1Sorted(name, pageNumber, pageSize)));
+        long start = rangeStart(from, to);
+        long end = rangeEnd(to);
+        return ResponseEntity.ok(orNotFound(name, () -> afterPrice != null
+                ? currencyService.getPricesByCurrName1SortedAfter(name, start, end, afterPrice, pageSize)
+                : currencyService.getPricesByCurrName1Sorted(name, start, end, pageNumber, pageSize)));
+    }
+
+    /**
+     * /cryptocurrencies/candles?name=<i>name</i>&interval=<i>interval</i>&from=<i>from</i>&to=<i>to</i>&limit=<i>limit</i>
+     * GET endpoint.
+     * <p>Get OHLC candles of the cryptocurrency with name <i>name</i> ordered by start.
+     * <p>Throws {@link ResponseStatusException} with status 400 if currency with name <i>name</i>
+     * does not exist, the interval is unknown or the range is malformed.
+     *
+     * @param name cryptocurrency name.
+     * @param interval candle interval, one of <b>1m</b>, <b>5m</b>, <b>1h</b>, <b>1d</b>.
+     * @param from start of the time range, inclusive. Optional.
+     * @param to end of the time range, inclusive. Optional.
+     * @param limit max number of candles. Default is <b>500</b>.<br>
+     *              Changed to <b>500</b> if <b>{@code limit<=0}</b>.
+     * @return candles of this cryptocurrency.
+     * @see CurrencyService#getCandles(String, CandleInterval, long, long, int)
+     */
+    @GetMapping("/candles")
+    public ResponseEntity<List<Candle>> getCandles(@RequestParam String name,
+                                                   @RequestParam String interval,
+                                                   @RequestParam(required = false) Long from,
+                                                   @RequestParam(required = false) Long to,
+                                                   @RequestParam(defaultValue = "500") int limit) {
+        CandleInterval candleInterval = candleInterval(interval);
+        long start = rangeStart(from, to);
+        long end = rangeEnd(to);
+        int candleLimit = limit <= 0 ? 500 : limit;
+        return ResponseEntity.ok(orNotFound(name,
+                () -> currencyService.getCandles(name, candleInterval, start, end, candleLimit)));
     }
 
     /**
      * /cryptocurrencies/csv GET endpoint.
      * <p>Generates and returns csv report file containing:
      * <b>Cryptocurrency Name, Min Price, Max Price</b> for each currency.
+     * <p>Lines are built from currency summaries read through a database cursor
+     * and written to the response as they are produced, so the report
+     * is sent chunked and never held in memory as a whole.
      *
      * @return csv report file to be downloaded.
+     * @see CurrencyService#streamAllSummaries()
      */
     @GetMapping("/csv")
-    public ResponseEntity<InputStreamResource> getCSVReport() {
-        byte[] bytes = currencyService.restoreAll().stream()
-                .map(cryptoCurrency ->
-                        cryptoCurrency.getCurrName1() + '/' +
-                                cryptoCurrency.getCurrName2() + ',' +
-                                currencyService.getMinPriceByCurrName1(cryptoCurrency.getCurrName1()).getPrice() + ',' +
-                                currencyService.getMaxPriceByCurrName1(cryptoCurrency.getCurrName1()).getPrice()
-                ).collect(Collectors.joining("\n")).getBytes(StandardCharsets.UTF_8);
+    public ResponseEntity<StreamingResponseBody> getCSVReport() {
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<CryptoCurrency> currencies = currencyService.streamAllSummaries()) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                Iterator<CryptoCurrency> iterator = currencies.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(toCSVLine(iterator.next()));
+                    if (iterator.hasNext())
+                        writer.write('\n');
+                }
+                writer.flush();
+            }
+        };
         return ResponseEntity.ok()
                 // Content-Disposition
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=csv_report.csv")
                 // Content-Type
                 .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
-                // Contet-Length
-                .contentLength(bytes.length)
-                .body(new InputStreamResource(new ByteArrayInputStream(bytes)));
+                .body(body);
     }
 
     /**
-     * <p>Checks if database has currency with the given name.
-     * Throws {@link ResponseStatusException} if it does not.
+     * <p>Runs a single lookup of currency with the given name and unwraps its result.
+     * Throws {@link ResponseStatusException} with status 400 if the currency does not exist
+     * and with status 404 if the lookup failed with {@link PriceException}.
      *
      * @param name cryptocurrency name.
-     * @throws ResponseStatusException if currency was not found.
-     * @see CurrencyService#checkCurrency(String)
+     * @param lookup service call returning {@link Optional#empty()} for unknown currencies.
+     * @param <T> type of the result.
+     * @return result of the lookup.
+     * @throws ResponseStatusException if currency or its prices were not found.
      */
-    private void currencyCheck(String name) throws ResponseStatusException {
-        if (!currencyService.checkCurrency(name))
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST, String.format("Currency %s not found", name),
-                    new CurrencyException("Currency not found"));
+    private <T> T orNotFound(String name, Supplier<Optional<T>> lookup) throws ResponseStatusException {
+        Optional<T> result;
+        try {
+            result = lookup.get();
+        } catch (PriceException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        }
+        return result.orElseThrow(() -> currencyNotFound(name));
     }
 }
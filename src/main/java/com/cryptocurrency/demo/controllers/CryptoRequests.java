@@ -0,0 +1,138 @@
+package com.cryptocurrency.demo.controllers;
+
+import com.cryptocurrency.demo.entities.CandleInterval;
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import com.cryptocurrency.demo.exceptions.CurrencyException;
+import com.cryptocurrency.demo.exceptions.PriceException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Parameter parsing and report formatting shared by
+ * {@link CryptoController} and {@link ReactiveCryptoController}.
+ */
+final class CryptoRequests {
+
+    static final int MAX_SUMMARY_NAMES = 100;
+
+    private CryptoRequests() {
+    }
+
+    /**
+     * <p>Trims the names and drops empty and repeated ones.
+     * Throws {@link ResponseStatusException} if no name or more than
+     * {@value #MAX_SUMMARY_NAMES} names are left.
+     *
+     * @param names cryptocurrency names.
+     * @return distinct names in the order they were given.
+     * @throws ResponseStatusException if the number of names is wrong.
+     */
+    static List<String> summaryNames(List<String> names) throws ResponseStatusException {
+        List<String> distinctNames = names.stream()
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        if (distinctNames.isEmpty() || distinctNames.size() > MAX_SUMMARY_NAMES)
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, String.format("From 1 to %d names are expected", MAX_SUMMARY_NAMES),
+                    new CurrencyException("Wrong number of names"));
+        return distinctNames;
+    }
+
+    /**
+     * <p>Parses candle interval.
+     * Throws {@link ResponseStatusException} if it is not supported.
+     *
+     * @param interval interval name, e.g. <b>1m</b>.
+     * @return parsed {@link CandleInterval}.
+     * @throws ResponseStatusException if <i>interval</i> is not supported.
+     */
+    static CandleInterval candleInterval(String interval) throws ResponseStatusException {
+        return CandleInterval.of(interval).orElseThrow(() -> new ResponseStatusException(
+                HttpStatus.BAD_REQUEST, String.format("Interval %s is not supported", interval),
+                new PriceException("Interval is not supported")));
+    }
+
+    /**
+     * Builds csv report line <b>Cryptocurrency Name, Min Price, Max Price</b>
+     * from the currency {@link PriceSummary}.
+     * <p>Min and max are left empty if the currency has no prices.
+     * Prices are plain decimals, like in JSON.
+     *
+     * @param cryptoCurrency currency with its {@link PriceSummary}.
+     * @return csv report line.
+     * @see Price#toPlainString(double)
+     */
+    static String toCSVLine(CryptoCurrency cryptoCurrency) {
+        PriceSummary summary = cryptoCurrency.getSummary();
+        return cryptoCurrency.getCurrName1() + '/' +
+                cryptoCurrency.getCurrName2() + ',' +
+                (summary.getMin() != null ? Price.toPlainString(summary.getMin().getPrice()) : "") + ',' +
+                (summary.getMax() != null ? Price.toPlainString(summary.getMax().getPrice()) : "");
+    }
+
+    /**
+     * <p>Parses {@link Price} given as <b>price,tmsp</b>.
+     * Throws {@link ResponseStatusException} if it is malformed.
+     *
+     * @param value price and timestamp separated with a comma.
+     * @return parsed {@link Price}.
+     * @throws ResponseStatusException if <i>value</i> is malformed.
+     */
+    static Price parsePrice(String value) throws ResponseStatusException {
+        String[] parts = value.split(",");
+        try {
+            if (parts.length == 2)
+                return new Price(Long.valueOf(parts[1].trim()), Double.parseDouble(parts[0].trim()));
+        } catch (NumberFormatException ignored) {
+        }
+        throw new ResponseStatusException(
+                HttpStatus.BAD_REQUEST, String.format("Price %s is malformed", value),
+                new PriceException("Price is malformed"));
+    }
+
+    /**
+     * <p>Returns start of the time range, unbounded if <i>from</i> is not given.
+     * Throws {@link ResponseStatusException} if the range ends before it starts.
+     *
+     * @param from start of the range. Optional.
+     * @param to end of the range. Optional.
+     * @return start of the range.
+     * @throws ResponseStatusException if <b>{@code from>to}</b>.
+     */
+    static long rangeStart(Long from, Long to) throws ResponseStatusException {
+        if (from != null && to != null && from > to)
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, String.format("Range from %d to %d is malformed", from, to),
+                    new PriceException("Range is malformed"));
+        return from != null ? from : Long.MIN_VALUE;
+    }
+
+    /**
+     * <p>Returns end of the time range, unbounded if <i>to</i> is not given.
+     *
+     * @param to end of the range. Optional.
+     * @return end of the range.
+     */
+    static long rangeEnd(Long to) {
+        return to != null ? to : Long.MAX_VALUE;
+    }
+
+    /**
+     * <p>Builds the error of a lookup of an unknown currency.
+     *
+     * @param name cryptocurrency name.
+     * @return {@link ResponseStatusException} with status 400.
+     */
+    static ResponseStatusException currencyNotFound(String name) {
+        return new ResponseStatusException(
+                HttpStatus.BAD_REQUEST, String.format("Currency %s not found", name),
+                new CurrencyException("Currency not found"));
+    }
+}
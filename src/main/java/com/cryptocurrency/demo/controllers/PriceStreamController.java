@@ -0,0 +1,45 @@
+package com.cryptocurrency.demo.controllers;
+
+import com.cryptocurrency.demo.context.StreamingProperties;
+import com.cryptocurrency.demo.services.PriceStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+import static com.cryptocurrency.demo.controllers.CryptoRequests.summaryNames;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/cryptocurrencies")
+public class PriceStreamController {
+
+    private final PriceStreamService priceStreamService;
+
+    /**
+     * /cryptocurrencies/stream?names=<i>name1</i>,<i>name2</i>,... GET endpoint.
+     * <p>Opens a server-sent events stream of <b>price</b> events, one per ingestion
+     * of a subscribed cryptocurrency, carrying new prices and the updated min and max.
+     * <p>Throws {@link ResponseStatusException} with status 400 if no name or more than
+     * {@value CryptoRequests#MAX_SUMMARY_NAMES} names are given, with status 503 if
+     * {@link StreamingProperties#getMaxSubscribers()} subscriptions are already open.
+     *
+     * @param names cryptocurrency names separated with commas.
+     * @return event stream.
+     * @throws ResponseStatusException if the names are wrong or there are too many subscribers.
+     * @see PriceStreamService#subscribe(java.util.Collection)
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam List<String> names) throws ResponseStatusException {
+        return priceStreamService.subscribe(summaryNames(names))
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.SERVICE_UNAVAILABLE, "Too many subscribers, retry later"));
+    }
+}
@@ -0,0 +1,191 @@
+package com.cryptocurrency.demo.controllers;
+
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CandleInterval;
+import com.cryptocurrency.demo.entities.PairSummary;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.exceptions.PriceException;
+import com.cryptocurrency.demo.services.ReactiveCurrencyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.cryptocurrency.demo.controllers.CryptoRequests.*;
+
+/**
+ * Endpoints of the <b>/cryptocurrencies</b> API backed by {@link ReactiveCurrencyService}.
+ * <p>URLs, parameters and responses are the same as of {@link CryptoController}.
+ * Handlers return {@link Mono} and {@link Flux}, so the request thread goes back
+ * to the pool while MongoDB is queried and the response is written
+ * when the result arrives.
+ * <p>This is Spring MVC with reactive return values, not WebFlux: requests are still
+ * read and responses written with blocking servlet I/O on Tomcat threads.
+ * <p>Active if <b>api.mode</b> is <b>reactive</b>.
+ *
+ * @see CryptoController
+ * @see com.cryptocurrency.demo.context.ReactiveConfig
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/cryptocurrencies")
+@ConditionalOnProperty(prefix = "api", name = "mode", havingValue = "reactive")
+public class ReactiveCryptoController {
+
+    private final ReactiveCurrencyService currencyService;
+
+    /**
+     * <p>/cryptocurrencies/minprice?name=<i>name</i>&from=<i>from</i>&to=<i>to</i> GET endpoint.
+     *
+     * @param name name cryptocurrency name.
+     * @param from start of the time range, inclusive. Optional.
+     * @param to end of the time range, inclusive. Optional.
+     * @return min {@link Price} for this cryptocurrency.
+     * @see CryptoController#getMinPrice(String, Long, Long)
+     */
+    @GetMapping("/minprice")
+    public Mono<ResponseEntity<Price>> getMinPrice(@RequestParam String name,
+                                                   @RequestParam(required = false) Long from,
+                                                   @RequestParam(required = false) Long to) {
+        if (from == null && to == null)
+            return orNotFound(name, currencyService.getMinPriceByCurrName1(name));
+        long start = rangeStart(from, to);
+        long end = rangeEnd(to);
+        return orNotFound(name, currencyService.getMinPriceByCurrName1(name, start, end));
+    }
+
+    /**
+     * <p>/cryptocurrencies/maxprice?name=<i>name</i>&from=<i>from</i>&to=<i>to</i> GET endpoint.
+     *
+     * @param name cryptocurrency name.
+     * @param from start of the time range, inclusive. Optional.
+     * @param to end of the time range, inclusive. Optional.
+     * @return max {@link Price} for this cryptocurrency.
+     * @see CryptoController#getMaxPrice(String, Long, Long)
+     */
+    @GetMapping("/maxprice")
+    public Mono<ResponseEntity<Price>> getMaxPrice(@RequestParam String name,
+                                                   @RequestParam(required = false) Long from,
+                                                   @RequestParam(required = false) Long to) {
+        if (from == null && to == null)
+            return orNotFound(name, currencyService.getMaxPriceByCurrName1(name));
+        long start = rangeStart(from, to);
+        long end = rangeEnd(to);
+        return orNotFound(name, currencyService.getMaxPriceByCurrName1(name, start, end));
+    }
+
+    /**
+     * /cryptocurrencies/summary?names=<i>name1</i>,<i>name2</i>,... GET endpoint.
+     *
+     * @param names cryptocurrency names separated with commas.
+     * @return {@link List} of {@link PairSummary} in the order of <i>names</i>.
+     * @see CryptoController#getSummaries(List)
+     */
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<List<PairSummary>>> getSummaries(@RequestParam List<String> names) {
+        return currencyService.getSummariesByCurrName1(summaryNames(names))
+                .collectList()
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * /cryptocurrencies?name=<i>name</i>&page=<i>page</i>&size=<i>size</i>&after=<i>after</i>&from=<i>from</i>&to=<i>to</i>
+     * GET endpoint.
+     *
+     * @param name cryptocurrency name.
+     * @param page page number for the {@link Price} list. Default is <b>0</b>.
+     * @param size page size for the {@link Price} list. Default is 10.
+     * @param after last price of the previous page as <b>price,tmsp</b>. Optional.
+     * @param from start of the time range, inclusive. Optional.
+     * @param to end of the time range, inclusive. Optional.
+     * @return page number <i>page</i> as if the page size was <i>size</i>.
+     * @see CryptoController#getPages(String, int, int, String, Long, Long)
+     */
+    @GetMapping
+    public Mono<ResponseEntity<List<Price>>> getPages(@RequestParam String name,
+                                                      @RequestParam(defaultValue = "0") int page,
+                                                      @RequestParam(defaultValue = "10") int size,
+                                                      @RequestParam(required = false) String after,
+                                                      @RequestParam(required = false) Long from,
+                                                      @RequestParam(required = false) Long to) {
+        int pageSize = size <= 0 ? 10 : size;
+        int pageNumber = Math.max(page, 0);
+        Price afterPrice = after != null ? parsePrice(after) : null;
+        if (from == null && to == null)
+            return orNotFound(name, afterPrice != null
+                    ? currencyService.getPricesByCurrName1SortedAfter(name, afterPrice, pageSize)
+                    : currencyService.getPricesByCurrName1Sorted(name, pageNumber, pageSize));
+        long start = rangeStart(from, to);
+        long end = rangeEnd(to);
+        return orNotFound(name, afterPrice != null
+                ? currencyService.getPricesByCurrName1SortedAfter(name, start, end, afterPrice, pageSize)
+                : currencyService.getPricesByCurrName1Sorted(name, start, end, pageNumber, pageSize));
+    }
+
+    /**
+     * /cryptocurrencies/candles?name=<i>name</i>&interval=<i>interval</i>&from=<i>from</i>&to=<i>to</i>&limit=<i>limit</i>
+     * GET endpoint.
+     *
+     * @param name cryptocurrency name.
+     * @param interval candle interval, one of <b>1m</b>, <b>5m</b>, <b>1h</b>, <b>1d</b>.
+     * @param from start of the time range, inclusive. Optional.
+     * @param to end of the time range, inclusive. Optional.
+     * @param limit max number of candles. Default is <b>500</b>.
+     * @return candles of this cryptocurrency.
+     * @see CryptoController#getCandles(String, String, Long, Long, int)
+     */
+    @GetMapping("/candles")
+    public Mono<ResponseEntity<List<Candle>>> getCandles(@RequestParam String name,
+                                                         @RequestParam String interval,
+                                                         @RequestParam(required = false) Long from,
+                                                         @RequestParam(required = false) Long to,
+                                                         @RequestParam(defaultValue = "500") int limit) {
+        CandleInterval candleInterval = candleInterval(interval);
+        long start = rangeStart(from, to);
+        long end = rangeEnd(to);
+        int candleLimit = limit <= 0 ? 500 : limit;
+        return orNotFound(name, currencyService.getCandles(name, candleInterval, start, end, candleLimit));
+    }
+
+    /**
+     * /cryptocurrencies/csv GET endpoint.
+     * <p>Report lines are written to the response as the database cursor emits currencies.
+     *
+     * @return csv report file to be downloaded.
+     * @see CryptoController#getCSVReport()
+     */
+    @GetMapping(value = "/csv", produces = "text/csv;charset=UTF-8")
+    public ResponseEntity<Flux<String>> getCSVReport() {
+        Flux<String> lines = currencyService.streamAllSummaries()
+                .index((index, currency) -> (index == 0 ? "" : "\n") + toCSVLine(currency));
+        return ResponseEntity.ok()
+                // Content-Disposition
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=csv_report.csv")
+                .body(lines);
+    }
+
+    /**
+     * <p>Unwraps the result of a lookup of currency with the given name.
+     * Fails with {@link ResponseStatusException} with status 400 if the currency does not exist
+     * and with status 404 if the lookup failed with {@link PriceException}.
+     *
+     * @param name cryptocurrency name.
+     * @param lookup service call completing empty for unknown currencies.
+     * @param <T> type of the result.
+     * @return response with the result of the lookup.
+     */
+    private <T> Mono<ResponseEntity<T>> orNotFound(String name, Mono<T> lookup) {
+        return lookup
+                .map(ResponseEntity::ok)
+                .switchIfEmpty(Mono.error(() -> currencyNotFound(name)))
+                .onErrorMap(PriceException.class,
+                        e -> new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e));
+    }
+}
@@ -0,0 +1,130 @@
+package com.cryptocurrency.demo.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OHLC rollup of the prices of one currency pair within one {@link CandleInterval}.
+ * <p>Candles are maintained while prices are appended, so charts over long
+ * periods read a few candles instead of the whole price history.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "price_candle")
+@CompoundIndexes({
+        @CompoundIndex(name = "unique_pair_interval_start_idx", def = "#{T(org.bson.Document).parse(\"{ 'currName1': 1, 'interval': 1, 'start': 1, 'currName2': 1 }\")}", unique = true),
+        @CompoundIndex(name = "pair_last_tmsp_idx", def = "#{T(org.bson.Document).parse(\"{ 'currName1': 1, 'currName2': 1, 'lastTmsp': 1 }\")}")
+})
+public class Candle {
+
+    @Id
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private String id;
+    private String currName1;
+    private String currName2;
+    private String interval;
+    private long start;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private long count;
+    /**
+     * Timestamp of the latest price merged into the candle.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private long lastTmsp;
+    /**
+     * Timestamp of the earliest price of a candle about to be merged, not stored.
+     */
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private long firstTmsp;
+
+    public Candle(String currName1, String currName2, CandleInterval interval, Price price) {
+        this.currName1 = currName1;
+        this.currName2 = currName2;
+        this.interval = interval.getName();
+        this.start = interval.startOf(price.getTmsp());
+        this.open = price.getPrice();
+        this.high = price.getPrice();
+        this.low = price.getPrice();
+        this.close = price.getPrice();
+        this.count = 1;
+        this.firstTmsp = price.getTmsp();
+        this.lastTmsp = price.getTmsp();
+    }
+
+    /**
+     * Builds candles of every {@link CandleInterval} over the given prices.
+     *
+     * @param currName1 primary currency name.
+     * @param currName2 secondary currency name.
+     * @param prices prices in ascending <i>tmsp</i> order.
+     * @return candles touched by the <i>prices</i>, ordered by interval and start.
+     */
+    public static List<Candle> rollup(String currName1, String currName2, List<Price> prices) {
+        return rollup(currName1, currName2, prices, List.of());
+    }
+
+    /**
+     * Builds candles of every {@link CandleInterval} over the given prices,
+     * leaving out prices the stored candles already contain.
+     * <p>A price is left out if the stored candle of its interval and start
+     * has merged a price with the same or a later timestamp.
+     *
+     * @param currName1 primary currency name.
+     * @param currName2 secondary currency name.
+     * @param prices prices in ascending <i>tmsp</i> order.
+     * @param merged stored candles of the pair with their {@link #getLastTmsp()}.
+     * @return candles over the prices not merged yet, ordered by interval and start.
+     */
+    public static List<Candle> rollup(String currName1, String currName2, List<Price> prices, List<Candle> merged) {
+        Map<String, Long> lastMerged = new HashMap<>();
+        merged.forEach(candle -> lastMerged.merge(
+                candle.getInterval() + '@' + candle.getStart(), candle.getLastTmsp(), Math::max));
+        List<Candle> candles = new ArrayList<>();
+        for (CandleInterval interval : CandleInterval.values()) {
+            Map<Long, Candle> byStart = new LinkedHashMap<>();
+            for (Price price : prices) {
+                long start = interval.startOf(price.getTmsp());
+                Long last = lastMerged.get(interval.getName() + '@' + start);
+                if (last == null || price.getTmsp() > last)
+                    byStart.merge(start, new Candle(currName1, currName2, interval, price), Candle::add);
+            }
+            candles.addAll(byStart.values());
+        }
+        return candles;
+    }
+
+    /**
+     * Adds a later candle of the same interval and start to this one.
+     *
+     * @param later candle over prices following the prices of this one.
+     * @return this candle.
+     */
+    public Candle add(Candle later) {
+        high = Math.max(high, later.high);
+        low = Math.min(low, later.low);
+        close = later.close;
+        count += later.count;
+        lastTmsp = later.lastTmsp;
+        return this;
+    }
+}
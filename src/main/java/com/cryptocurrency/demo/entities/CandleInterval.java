@@ -0,0 +1,45 @@
+package com.cryptocurrency.demo.entities;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Intervals of {@link Candle} rollups maintained for every currency pair.
+ * <p>Lengths are in seconds, the unit of {@link Price#getTmsp()} returned by cex.io.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CandleInterval {
+    ONE_MINUTE("1m", 60),
+    FIVE_MINUTES("5m", 5 * 60),
+    ONE_HOUR("1h", 60 * 60),
+    ONE_DAY("1d", 24 * 60 * 60);
+
+    private final String name;
+    private final long seconds;
+
+    /**
+     * Returns start of the candle the timestamp falls into.
+     *
+     * @param tmsp price timestamp.
+     * @return start of the candle containing <i>tmsp</i>.
+     */
+    public long startOf(long tmsp) {
+        return Math.floorDiv(tmsp, seconds) * seconds;
+    }
+
+    /**
+     * Finds interval by its name, e.g. <b>1h</b>.
+     *
+     * @param name interval name.
+     * @return interval with the <i>name</i>, or {@link Optional#empty()} if there is none.
+     */
+    public static Optional<CandleInterval> of(String name) {
+        return Arrays.stream(values())
+                .filter(interval -> interval.name.equals(name))
+                .findFirst();
+    }
+}
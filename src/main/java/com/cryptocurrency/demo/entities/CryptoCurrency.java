@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -23,7 +24,9 @@ public class CryptoCurrency {
     private String id;
     private String currName1;
     private String currName2;
+    @Transient
     private List<Price> prices;
+    private PriceSummary summary;
 
     public CryptoCurrency(String currName1, String currName2, List<Price> prices) {
         this.currName1 = currName1;
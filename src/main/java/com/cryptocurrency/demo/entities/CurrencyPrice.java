@@ -0,0 +1,38 @@
+package com.cryptocurrency.demo.entities;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One {@link Price} of a currency pair stored in its own document,
+ * so the price history of a pair is not limited by the document size.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "currency_price")
+@CompoundIndexes({
+        @CompoundIndex(name = "unique_pair_tmsp_idx", def = "#{T(org.bson.Document).parse(\"{ 'currName1': 1, 'tmsp': 1, 'currName2': 1 }\")}", unique = true),
+        @CompoundIndex(name = "pair_price_idx", def = "#{T(org.bson.Document).parse(\"{ 'currName1': 1, 'price': 1, 'tmsp': 1 }\")}")
+})
+public class CurrencyPrice {
+
+    @Id
+    @EqualsAndHashCode.Exclude
+    private String id;
+    private String currName1;
+    private String currName2;
+    private Long tmsp;
+    private double price;
+
+    public CurrencyPrice(String currName1, String currName2, Price price) {
+        this.currName1 = currName1;
+        this.currName2 = currName2;
+        this.tmsp = price.getTmsp();
+        this.price = price.getPrice();
+    }
+}
@@ -0,0 +1,35 @@
+package com.cryptocurrency.demo.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Optional;
+
+/**
+ * Min, max, count and latest price of one currency pair,
+ * as returned by the batch summary endpoint.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PairSummary {
+    private String currName1;
+    private String currName2;
+    private Price min;
+    private Price max;
+    private long count;
+    private Price last;
+
+    /**
+     * Builds pair summary from the currency and its {@link PriceSummary}.
+     *
+     * @param currency currency with its {@link PriceSummary}, which may be missing.
+     * @return summary of the pair.
+     */
+    public static PairSummary of(CryptoCurrency currency) {
+        PriceSummary summary = Optional.ofNullable(currency.getSummary()).orElseGet(PriceSummary::new);
+        return new PairSummary(currency.getCurrName1(), currency.getCurrName2(),
+                summary.getMin(), summary.getMax(), summary.getCount(), summary.getLast());
+    }
+}
@@ -1,11 +1,49 @@
 package com.cryptocurrency.demo.entities;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+
 @Data
 @AllArgsConstructor
 public class Price {
     private Long tmsp;
-    private String price;
+    /**
+     * Written to JSON as a plain decimal string, the shape prices had when they were stored as strings.
+     */
+    @JsonSerialize(using = PlainStringSerializer.class)
+    private double price;
+
+    /**
+     * Formats price as a plain decimal, without the exponent {@link Double#toString(double)}
+     * switches to below 10<sup>-3</sup> and from 10<sup>7</sup> on,
+     * e.g. <b>10000000</b> instead of <b>1.0E7</b>.
+     *
+     * @param price price to format.
+     * @return plain decimal, or {@link Double#toString(double)} if <i>price</i> is not finite.
+     */
+    public static String toPlainString(double price) {
+        return Double.isFinite(price) ? BigDecimal.valueOf(price).toPlainString() : Double.toString(price);
+    }
+
+    /**
+     * Writes price as a string formatted by {@link #toPlainString(double)}.
+     */
+    public static class PlainStringSerializer extends StdSerializer<Double> {
+
+        public PlainStringSerializer() {
+            super(Double.class);
+        }
+
+        @Override
+        public void serialize(Double value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeString(toPlainString(value));
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package com.cryptocurrency.demo.entities;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Running aggregate over the prices of one currency pair.
+ * <p>Kept next to the pair so that min/max/count lookups never
+ * have to load and scan the whole price history.
+ */
+@Data
+@NoArgsConstructor
+public class PriceSummary {
+    private Price min;
+    private Price max;
+    private long count;
+    private Price first;
+    private Price last;
+
+    /**
+     * Builds a summary over the given prices.
+     *
+     * @param prices prices to aggregate, may be <b>null</b>.
+     * @return summary of the <i>prices</i>.
+     */
+    public static PriceSummary of(List<Price> prices) {
+        PriceSummary summary = new PriceSummary();
+        if (prices != null)
+            prices.forEach(summary::add);
+        return summary;
+    }
+
+    /**
+     * Adds one price to the aggregate.
+     *
+     * @param price price to add.
+     * @return this summary.
+     */
+    public PriceSummary add(Price price) {
+        if (min == null || price.getPrice() < min.getPrice())
+            min = price;
+        if (max == null || price.getPrice() > max.getPrice())
+            max = price;
+        if (first == null || price.getTmsp() < first.getTmsp())
+            first = price;
+        if (last == null || price.getTmsp() > last.getTmsp())
+            last = price;
+        count++;
+        return this;
+    }
+}
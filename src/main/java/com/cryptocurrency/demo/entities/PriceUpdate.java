@@ -0,0 +1,22 @@
+package com.cryptocurrency.demo.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * New prices of a currency pair together with its updated min and max,
+ * as pushed to stream subscribers.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceUpdate {
+    private String currName1;
+    private String currName2;
+    private List<Price> prices;
+    private Price min;
+    private Price max;
+}
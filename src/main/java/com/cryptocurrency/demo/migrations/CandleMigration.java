@@ -0,0 +1,85 @@
+package com.cryptocurrency.demo.migrations;
+
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.repositories.CandleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Builds {@link Candle} rollups from prices stored before candles were maintained.
+ * <p>Prices are read through a cursor in ascending <i>tmsp</i> order and merged in batches.
+ * Completion is recorded in the <b>{@value #MARKER_COLLECTION}</b> collection, and
+ * until then every startup drops the candles of an interrupted run and starts over.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+@Order(2)
+public class CandleMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+    static final String MARKER_COLLECTION = "applied_migration";
+    static final String MARKER_ID = "candles";
+
+    private final MongoTemplate mongoTemplate;
+    private final CandleRepository candleRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query marker = Query.query(Criteria.where("_id").is(MARKER_ID));
+        if (mongoTemplate.exists(marker, MARKER_COLLECTION))
+            return;
+        candleRepository.deleteAll();
+        Query query = new Query().with(Sort.by("currName1", "tmsp"));
+        long migrated = 0;
+        List<CurrencyPrice> batch = new ArrayList<>(BATCH_SIZE);
+        try (Stream<CurrencyPrice> cursor = mongoTemplate.stream(query, CurrencyPrice.class)) {
+            Iterator<CurrencyPrice> prices = cursor.iterator();
+            while (prices.hasNext()) {
+                batch.add(prices.next());
+                if (batch.size() == BATCH_SIZE) {
+                    migrated += mergeBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        migrated += mergeBatch(batch);
+        mongoTemplate.save(new Document("_id", MARKER_ID).append("appliedAt", new Date()), MARKER_COLLECTION);
+        log.info("Built candles from {} stored prices", migrated);
+    }
+
+    /**
+     * Rolls up a batch of stored prices into candles of their pairs.
+     *
+     * @param batch prices in ascending <i>tmsp</i> order within each pair.
+     * @return number of rolled up prices.
+     */
+    private int mergeBatch(List<CurrencyPrice> batch) {
+        Map<List<String>, List<Price>> byPair = new LinkedHashMap<>();
+        batch.forEach(price -> byPair
+                .computeIfAbsent(List.of(price.getCurrName1(), price.getCurrName2()), pair -> new ArrayList<>())
+                .add(new Price(price.getTmsp(), price.getPrice())));
+        byPair.forEach((pair, prices) ->
+                candleRepository.mergeCandles(Candle.rollup(pair.get(0), pair.get(1), prices)));
+        return batch.size();
+    }
+}
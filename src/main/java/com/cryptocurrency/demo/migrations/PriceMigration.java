@@ -0,0 +1,79 @@
+package com.cryptocurrency.demo.migrations;
+
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import com.cryptocurrency.demo.repositories.PriceRepository;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Brings <b>crypto_currency</b> documents written by older versions
+ * up to date on startup.
+ * <p>Prices embedded in the currency document are converted to numbers,
+ * moved to the <b>currency_price</b> collection and replaced
+ * with a recalculated {@link PriceSummary}.
+ * <p>Only outdated documents are matched, so running it again is a no-op.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+@Order(1)
+public class PriceMigration implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final PriceRepository priceRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(
+                mongoTemplate.getCollectionName(CryptoCurrency.class))
+                .find(Filters.exists("prices"))
+                .iterator()) {
+            while (cursor.hasNext())
+                moveEmbeddedPrices(cursor.next());
+        }
+    }
+
+    /**
+     * Moves prices embedded in the currency document to the price collection.
+     * <p>Prices may be stored either as numbers or as strings.
+     *
+     * @param document raw <b>crypto_currency</b> document.
+     */
+    private void moveEmbeddedPrices(Document document) {
+        String currName1 = document.getString("currName1");
+        String currName2 = document.getString("currName2");
+        List<Price> prices = Optional.ofNullable(document.getList("prices", Document.class))
+                .orElse(List.of()).stream()
+                .map(price -> new Price(
+                        price.get("tmsp", Number.class).longValue(),
+                        Double.parseDouble(String.valueOf(price.get("price")))))
+                .collect(Collectors.toList());
+
+        priceRepository.insertIgnoringDuplicates(prices.stream()
+                .map(price -> new CurrencyPrice(currName1, currName2, price))
+                .collect(Collectors.toList()));
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(document.get("_id"))),
+                new Update().set("summary", PriceSummary.of(prices)).unset("prices"),
+                CryptoCurrency.class);
+        log.info("Moved {} embedded prices of {}/{}", prices.size(), currName1, currName2);
+    }
+}
@@ -0,0 +1,15 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.Candle;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CandleRepository extends MongoRepository<Candle, String>, CandleRepositoryCustom {
+    @Query(value = "{ 'currName1': ?0, 'interval': ?1, 'start': { $gte: ?2, $lte: ?3 } }", sort = "{ 'start': 1 }")
+    List<Candle> findByCurrName1InRange(String currName1, String interval, long from, long to, Pageable pageable);
+}
@@ -0,0 +1,13 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import org.springframework.data.mongodb.core.BulkOperations;
+
+import java.util.List;
+
+public interface CandleRepositoryCustom {
+    long mergeCandles(List<Candle> candles);
+    long mergeCandles(List<Candle> candles, BulkOperations.BulkMode mode);
+    List<Candle> findMergedSince(List<CurrencyPrice> firstPrices);
+}
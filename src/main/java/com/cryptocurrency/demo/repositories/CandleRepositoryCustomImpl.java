@@ -0,0 +1,114 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class CandleRepositoryCustomImpl implements CandleRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Merges candles into the stored ones in one unordered bulk write.
+     * <p>A missing candle is inserted. An existing one keeps its open price,
+     * extends its high and low, takes the new close price and adds the count,
+     * so the candles must be built from prices newer than the stored ones.
+     * <p>A candle which has merged a price at or after {@link Candle#getFirstTmsp()}
+     * of the new one is left as it is, so writing the same candles again
+     * after a failure does not count their prices twice.
+     *
+     * @param candles candles to merge.
+     * @return number of merged candles.
+     * @throws BulkOperationException if any upsert failed for another reason.
+     * @see #mergeCandles(List, BulkOperations.BulkMode)
+     */
+    @Override
+    public long mergeCandles(List<Candle> candles) throws BulkOperationException {
+        return mergeCandles(candles, BulkOperations.BulkMode.UNORDERED);
+    }
+
+    /**
+     * Merges candles into the stored ones in one bulk write of the given mode.
+     * <p>A candle already containing the new prices does not match the upsert filter,
+     * so its upsert fails as a duplicate and is skipped. An <i>ordered</i> write
+     * stops there, so the candles after it are written again with another ordered write.
+     *
+     * @param candles candles to merge.
+     * @param mode whether the server stops at the first failed upsert.
+     * @return number of merged candles.
+     * @throws BulkOperationException if any upsert failed for another reason.
+     * @see #mergeCandles(List)
+     */
+    @Override
+    public long mergeCandles(List<Candle> candles, BulkOperations.BulkMode mode) throws BulkOperationException {
+        long merged = 0;
+        int from = 0;
+        while (from < candles.size()) {
+            BulkOperations operations = mongoTemplate.bulkOps(mode, Candle.class);
+            candles.subList(from, candles.size()).forEach(candle -> operations.upsert(
+                    Query.query(Criteria.where("currName1").is(candle.getCurrName1())
+                            .and("interval").is(candle.getInterval())
+                            .and("start").is(candle.getStart())
+                            .and("currName2").is(candle.getCurrName2())
+                            .orOperator(Criteria.where("lastTmsp").lt(candle.getFirstTmsp()),
+                                    Criteria.where("lastTmsp").exists(false))),
+                    new Update()
+                            .setOnInsert("open", candle.getOpen())
+                            .max("high", candle.getHigh())
+                            .min("low", candle.getLow())
+                            .set("close", candle.getClose())
+                            .inc("count", candle.getCount())
+                            .max("lastTmsp", candle.getLastTmsp())));
+            try {
+                BulkWriteResult result = operations.execute();
+                return merged + result.getMatchedCount() + result.getUpserts().size();
+            } catch (BulkOperationException e) {
+                boolean duplicatesOnly = e.getErrors().stream()
+                        .map(BulkWriteError::getCode)
+                        .allMatch(code -> ErrorCategory.fromErrorCode(code) == ErrorCategory.DUPLICATE_KEY);
+                if (!duplicatesOnly)
+                    throw e;
+                merged += e.getResult().getMatchedCount() + e.getResult().getUpserts().size();
+                if (mode == BulkOperations.BulkMode.UNORDERED)
+                    return merged;
+                from += e.getErrors().get(0).getIndex() + 1;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Finds stored candles which have merged the given price of their pair
+     * or a later one, i.e. whose prices overlap prices about to be merged.
+     * <p>Normally nothing is found, candles overlap only if an earlier append
+     * failed after merging them.
+     *
+     * @param firstPrices first price about to be merged, one per pair.
+     * @return overlapping candles with their pair, interval, start and {@link Candle#getLastTmsp()}.
+     * @see Candle#rollup(String, String, List, List)
+     */
+    @Override
+    public List<Candle> findMergedSince(List<CurrencyPrice> firstPrices) {
+        if (firstPrices.isEmpty())
+            return List.of();
+        Query query = Query.query(new Criteria().orOperator(firstPrices.stream()
+                .map(price -> Criteria.where("currName1").is(price.getCurrName1())
+                        .and("currName2").is(price.getCurrName2())
+                        .and("lastTmsp").gte(price.getTmsp()))
+                .toArray(Criteria[]::new)));
+        query.fields().include("currName1", "currName2", "interval", "start", "lastTmsp");
+        return mongoTemplate.find(query, Candle.class);
+    }
+}
@@ -2,9 +2,38 @@ package com.cryptocurrency.demo.repositories;
 
 import com.cryptocurrency.demo.entities.CryptoCurrency;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface CurrencyRepository extends MongoRepository<CryptoCurrency, String> {
-    CryptoCurrency findByCurrName1(String currName1);
+public interface CurrencyRepository extends MongoRepository<CryptoCurrency, String>, CurrencyRepositoryCustom {
+    boolean existsByCurrName1(String currName1);
+
+    @Query(value = "{ 'currName1': ?0 }", fields = "{ 'summary.min': 1 }")
+    Optional<CryptoCurrency> findMinByCurrName1(String currName1);
+
+    @Query(value = "{ 'currName1': ?0 }", fields = "{ 'summary.max': 1 }")
+    Optional<CryptoCurrency> findMaxByCurrName1(String currName1);
+
+    @Query(value = "{ 'currName1': ?0 }", fields = "{ 'summary.count': 1 }")
+    Optional<CryptoCurrency> findCountByCurrName1(String currName1);
+
+    @Query(value = "{ 'currName1': { $in: ?0 } }", fields = "{ 'currName1': 1, 'currName2': 1, " +
+            "'summary.min': 1, 'summary.max': 1, 'summary.count': 1, 'summary.last': 1 }")
+    List<CryptoCurrency> findSummariesByCurrName1In(Collection<String> currNames1);
+
+    @Query(value = "{ 'currName1': { $in: ?0 } }", fields = "{ 'currName1': 1, 'currName2': 1, 'summary': 1 }")
+    List<CryptoCurrency> findFullSummariesByCurrName1In(Collection<String> currNames1);
+
+    @Query(value = "{ 'currName1': ?0, 'currName2': ?1 }", fields = "{ 'currName1': 1, 'currName2': 1, 'summary': 1 }")
+    Optional<CryptoCurrency> findSummaryByCurrName1AndCurrName2(String currName1, String currName2);
+
+    @Query(value = "{}", fields = "{ 'currName1': 1, 'currName2': 1, 'summary.min.price': 1, 'summary.max.price': 1 }")
+    Stream<CryptoCurrency> streamAllSummaries();
+
 }
@@ -0,0 +1,12 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import org.springframework.data.mongodb.core.BulkOperations;
+
+import java.util.List;
+
+public interface CurrencyRepositoryCustom {
+    CryptoCurrency upsertSummary(String currName1, String currName2, PriceSummary summary);
+    void upsertSummaries(List<CryptoCurrency> currencies, BulkOperations.BulkMode mode);
+}
@@ -0,0 +1,57 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class CurrencyRepositoryCustomImpl implements CurrencyRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Sets {@link PriceSummary} of the pair with a single targeted update,
+     * creating the pair document if it does not exist yet.
+     *
+     * @param currName1 primary currency name.
+     * @param currName2 secondary currency name.
+     * @param summary new summary of the pair.
+     * @return updated {@link CryptoCurrency}.
+     */
+    @Override
+    public CryptoCurrency upsertSummary(String currName1, String currName2, PriceSummary summary) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("currName1").is(currName1).and("currName2").is(currName2)),
+                Update.update("summary", summary),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                CryptoCurrency.class);
+    }
+
+    /**
+     * Sets {@link PriceSummary} of every pair in one bulk write of the given mode,
+     * creating the pair documents which do not exist yet.
+     *
+     * @param currencies pairs with their new summaries.
+     * @param mode whether the server stops at the first failed upsert.
+     * @see #upsertSummary(String, String, PriceSummary)
+     */
+    @Override
+    public void upsertSummaries(List<CryptoCurrency> currencies, BulkOperations.BulkMode mode) {
+        if (currencies.isEmpty())
+            return;
+        BulkOperations operations = mongoTemplate.bulkOps(mode, CryptoCurrency.class);
+        currencies.forEach(currency -> operations.upsert(
+                Query.query(Criteria.where("currName1").is(currency.getCurrName1())
+                        .and("currName2").is(currency.getCurrName2())),
+                Update.update("summary", currency.getSummary())));
+        operations.execute();
+    }
+}
@@ -0,0 +1,656 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.cryptocurrency.demo.entities.Price;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+
+/**
+ * {@link PriceStore} keeping the price history of every currency in process memory.
+ * <p>A history is a pair of primitive columns, timestamps and prices in ascending
+ * <i>tmsp</i> order, plus an index of positions in ascending price order,
+ * about 20 bytes per price. Time ranges are found by binary search in the timestamps,
+ * price order is read from the index. {@link Price} objects are created only
+ * for the returned page.
+ * <p>The index is a few sorted runs rather than one array, so appending prices
+ * does not rebuild it: new prices form a run which is merged only with runs
+ * at most twice as long, like a log-structured merge. That is <i>O(log n)</i>
+ * amortized work per appended price, and at most <i>log<sub>2</sub> n</i> runs
+ * which readers merge on the fly.
+ * <p>Readers see immutable snapshots of the columns and never wait for writers.
+ * Inserted prices are added to memory right away and written to MongoDB
+ * in the background by a single writer, so prices not written yet are lost
+ * if the application stops abruptly. A failed write is retried with exponential
+ * backoff, prices of writes failing every attempt are counted as lost.
+ * After {@link #close()} prices are written synchronously.
+ * <p>Histories are loaded from MongoDB on startup, after the migrations.
+ *
+ * @see com.cryptocurrency.demo.services.PriceStoreHealthIndicator
+ */
+@Slf4j
+@Order(3)
+public class InMemoryPriceStore implements PriceStore, ApplicationRunner, AutoCloseable {
+
+    static final int WRITE_ATTEMPTS = 5;
+
+    private final PriceRepository priceRepository;
+    private final MongoTemplate mongoTemplate;
+    private final Duration retryBackoff;
+    private final Map<String, Columns> histories = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+    private final AtomicLong lostPrices = new AtomicLong();
+    private volatile String lastWriteFailure;
+
+    public InMemoryPriceStore(PriceRepository priceRepository, MongoTemplate mongoTemplate) {
+        this(priceRepository, mongoTemplate, Duration.ofSeconds(1));
+    }
+
+    InMemoryPriceStore(PriceRepository priceRepository, MongoTemplate mongoTemplate, Duration retryBackoff) {
+        this.priceRepository = priceRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * Loads all stored prices, reading them through a cursor
+     * in ascending <i>currName1</i> and <i>tmsp</i> order.
+     * <p>Columns of a currency are filled as the cursor goes and its price index
+     * is sorted once, when the cursor moves on to the next currency.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        Query query = new Query().with(Sort.by("currName1", "tmsp"));
+        String currName1 = null;
+        Columns.Builder columns = new Columns.Builder();
+        long loaded = 0;
+        try (Stream<CurrencyPrice> cursor = mongoTemplate.stream(query, CurrencyPrice.class)) {
+            Iterator<CurrencyPrice> prices = cursor.iterator();
+            while (prices.hasNext()) {
+                CurrencyPrice price = prices.next();
+                if (!price.getCurrName1().equals(currName1)) {
+                    loaded += load(currName1, columns);
+                    currName1 = price.getCurrName1();
+                    columns = new Columns.Builder();
+                }
+                columns.add(price.getTmsp(), price.getPrice());
+            }
+        }
+        loaded += load(currName1, columns);
+        log.info("Loaded {} prices of {} currencies into memory", loaded, histories.size());
+    }
+
+    /**
+     * Waits for the prices queued for MongoDB to be written.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS))
+                log.warn("{} writes of prices to MongoDB were not done before shutdown", pendingWrites.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted waiting for {} writes of prices to MongoDB", pendingWrites.get());
+        }
+    }
+
+    /**
+     * Returns number of writes to MongoDB queued or running.
+     *
+     * @return number of pending writes.
+     */
+    public int getPendingWrites() {
+        return pendingWrites.get();
+    }
+
+    /**
+     * Returns number of prices kept in memory which could not be written to MongoDB,
+     * they are missing from the histories loaded on the next startup.
+     *
+     * @return number of lost prices since startup.
+     */
+    public long getLostPrices() {
+        return lostPrices.get();
+    }
+
+    /**
+     * Returns message of the last failed attempt to write prices to MongoDB.
+     *
+     * @return failure message, <i>null</i> if no write has failed.
+     */
+    public String getLastWriteFailure() {
+        return lastWriteFailure;
+    }
+
+    @Override
+    public List<Price> findByCurrName1OrderByPriceAscTmspAsc(String currName1, Pageable pageable) {
+        Columns columns = histories.getOrDefault(currName1, Columns.EMPTY);
+        return findInRangeSortedAfter(columns, columns.first(), Long.MIN_VALUE, Long.MAX_VALUE, pageable);
+    }
+
+    @Override
+    public List<Price> findByCurrName1SortedAfter(String currName1, double price, long tmsp, Pageable pageable) {
+        Columns columns = histories.getOrDefault(currName1, Columns.EMPTY);
+        return findInRangeSortedAfter(columns, columns.firstAfter(price, tmsp),
+                Long.MIN_VALUE, Long.MAX_VALUE, pageable);
+    }
+
+    /**
+     * Returns one page of prices with timestamps in the range, both inclusive,
+     * ordered by the sort of the <i>pageable</i>: by <i>price</i>, then by <i>tmsp</i>,
+     * or by <i>tmsp</i> only. Unsorted pages are in ascending <i>tmsp</i> order.
+     */
+    @Override
+    public List<Price> findByCurrName1InRange(String currName1, long from, long to, Pageable pageable) {
+        Columns columns = histories.getOrDefault(currName1, Columns.EMPTY);
+        Sort.Order first = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("tmsp"));
+        if (first.getProperty().equals("price") && first.isAscending())
+            return findInRangeSortedAfter(columns, columns.first(), from, to, pageable);
+        int start = columns.lowerBound(from);
+        int end = columns.upperBound(to);
+        List<Price> page = new ArrayList<>(pageable.getPageSize());
+        if (first.getProperty().equals("price"))
+            columns.forEachByPriceDescending(pagingCollector(columns, start, end, pageable, page));
+        else if (first.isAscending())
+            for (long i = start + pageable.getOffset(); i < end && page.size() < pageable.getPageSize(); i++)
+                page.add(columns.priceAt((int) i));
+        else
+            for (long i = end - 1 - pageable.getOffset(); i >= start && page.size() < pageable.getPageSize(); i--)
+                page.add(columns.priceAt((int) i));
+        return page;
+    }
+
+    @Override
+    public long countByCurrName1InRange(String currName1, long from, long to) {
+        Columns columns = histories.getOrDefault(currName1, Columns.EMPTY);
+        return Math.max(0, columns.upperBound(to) - columns.lowerBound(from));
+    }
+
+    @Override
+    public List<Price> findByCurrName1InRangeSortedAfter(String currName1, double price, long tmsp,
+                                                         long from, long to, Pageable pageable) {
+        Columns columns = histories.getOrDefault(currName1, Columns.EMPTY);
+        return findInRangeSortedAfter(columns, columns.firstAfter(price, tmsp), from, to, pageable);
+    }
+
+    @Override
+    public long insertIgnoringDuplicates(List<CurrencyPrice> prices) {
+        return insertIgnoringDuplicates(prices, BulkOperations.BulkMode.UNORDERED);
+    }
+
+    /**
+     * Adds prices to the histories in memory and queues them to be written to MongoDB.
+     * <p>Prices already stored for the same currency and timestamp are skipped.
+     * Once the store is closed, prices are written on the calling thread instead,
+     * so an append during shutdown is not kept in memory only.
+     *
+     * @param prices prices to insert.
+     * @param mode bulk mode of the MongoDB write.
+     * @return number of prices added to memory.
+     */
+    @Override
+    public long insertIgnoringDuplicates(List<CurrencyPrice> prices, BulkOperations.BulkMode mode) {
+        long inserted = insert(prices);
+        if (prices.isEmpty())
+            return inserted;
+        pendingWrites.incrementAndGet();
+        Runnable task = () -> {
+            try {
+                write(prices, mode);
+            } finally {
+                pendingWrites.decrementAndGet();
+            }
+        };
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Background writer is shut down, writing {} prices to MongoDB synchronously", prices.size());
+            task.run();
+        }
+        return inserted;
+    }
+
+    /**
+     * Writes prices to MongoDB, making up to {@link #WRITE_ATTEMPTS} attempts
+     * with the backoff doubled after each failure.
+     * <p>Retrying is safe, prices written by a failed attempt are skipped as duplicates.
+     */
+    private void write(List<CurrencyPrice> prices, BulkOperations.BulkMode mode) {
+        long backoff = retryBackoff.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                priceRepository.insertIgnoringDuplicates(prices, mode);
+                return;
+            } catch (RuntimeException e) {
+                lastWriteFailure = e.getMessage();
+                if (attempt == WRITE_ATTEMPTS) {
+                    lostPrices.addAndGet(prices.size());
+                    log.error("Writing {} prices to MongoDB failed {} times, they are kept in memory only",
+                            prices.size(), attempt, e);
+                    return;
+                }
+                log.warn("Writing {} prices to MongoDB failed, retrying in {} ms", prices.size(), backoff, e);
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lostPrices.addAndGet(prices.size());
+                log.error("Retrying to write {} prices to MongoDB was interrupted", prices.size());
+                return;
+            }
+            backoff *= 2;
+        }
+    }
+
+    /**
+     * Puts columns loaded from MongoDB into the histories, merging prices
+     * inserted in the meantime into them.
+     *
+     * @return number of loaded prices.
+     */
+    private long load(String currName1, Columns.Builder loaded) {
+        if (currName1 == null)
+            return 0;
+        Columns columns = loaded.build();
+        histories.merge(currName1, columns, (inserted, stored) -> stored.merge(
+                Arrays.copyOf(inserted.tmsp, inserted.size), Arrays.copyOf(inserted.price, inserted.size)));
+        return columns.size;
+    }
+
+    private long insert(List<CurrencyPrice> prices) {
+        Map<String, List<CurrencyPrice>> byCurrency = new LinkedHashMap<>();
+        prices.forEach(price -> byCurrency.computeIfAbsent(price.getCurrName1(), name -> new ArrayList<>()).add(price));
+        long[] inserted = new long[1];
+        byCurrency.forEach((currName1, added) -> histories.compute(currName1, (name, columns) -> {
+            Columns merged = (columns != null ? columns : Columns.EMPTY).merge(added);
+            inserted[0] += merged.size - (columns != null ? columns.size : 0);
+            return merged;
+        }));
+        return inserted[0];
+    }
+
+    /**
+     * Returns one page of prices in ascending price order, starting at the given
+     * ranks of the runs of the price index and skipping prices outside the range.
+     * <p>If the range covers the whole history and the index is a single run,
+     * the page is read from the index directly.
+     */
+    private List<Price> findInRangeSortedAfter(Columns columns, int[] startRanks, long from, long to,
+                                               Pageable pageable) {
+        int start = columns.lowerBound(from);
+        int end = columns.upperBound(to);
+        List<Price> page = new ArrayList<>(pageable.getPageSize());
+        if (start == 0 && end == columns.size && columns.byPrice.length == 1) {
+            int[] index = columns.byPrice[0];
+            for (long rank = startRanks[0] + pageable.getOffset();
+                 rank < columns.size && page.size() < pageable.getPageSize(); rank++)
+                page.add(columns.priceAt(index[(int) rank]));
+            return page;
+        }
+        columns.forEachByPriceAscending(startRanks, pagingCollector(columns, start, end, pageable, page));
+        return page;
+    }
+
+    /**
+     * Returns visitor of positions which skips positions outside <i>[start, end)</i>
+     * and the first {@link Pageable#getOffset()} ones, collects the rest into the page
+     * and stops when the page is full.
+     */
+    private static IntPredicate pagingCollector(Columns columns, int start, int end, Pageable pageable,
+                                                List<Price> page) {
+        long[] skip = {pageable.getOffset()};
+        return position -> {
+            if (position < start || position >= end)
+                return true;
+            if (skip[0] > 0) {
+                skip[0]--;
+                return true;
+            }
+            page.add(columns.priceAt(position));
+            return page.size() < pageable.getPageSize();
+        };
+    }
+
+    /**
+     * Immutable snapshot of one price history.
+     * <p>Arrays may be longer than {@link #size}, a later snapshot may fill them further,
+     * which does not affect readers of this one.
+     */
+    private static final class Columns {
+        static final Columns EMPTY = new Columns(new long[0], new double[0], 0, new int[0][]);
+
+        final long[] tmsp;
+        final double[] price;
+        final int size;
+        /**
+         * Runs of positions, each sorted by price, then by <i>tmsp</i>, together covering
+         * all positions. Every run is more than twice as long as the next one.
+         */
+        final int[][] byPrice;
+
+        Columns(long[] tmsp, double[] price, int size, int[][] byPrice) {
+            this.tmsp = tmsp;
+            this.price = price;
+            this.size = size;
+            this.byPrice = byPrice;
+        }
+
+        Price priceAt(int position) {
+            return new Price(tmsp[position], price[position]);
+        }
+
+        /**
+         * Returns first position with timestamp not less than <i>from</i>.
+         */
+        int lowerBound(long from) {
+            int low = 0, high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (tmsp[mid] < from)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        /**
+         * Returns first position with timestamp greater than <i>to</i>.
+         */
+        int upperBound(long to) {
+            int low = 0, high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (tmsp[mid] <= to)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        /**
+         * Returns first rank of every run of the price index.
+         */
+        int[] first() {
+            return new int[byPrice.length];
+        }
+
+        /**
+         * Returns first rank of every run of the price index following the given price in price order.
+         */
+        int[] firstAfter(double afterPrice, long afterTmsp) {
+            int[] ranks = new int[byPrice.length];
+            for (int run = 0; run < byPrice.length; run++) {
+                int[] index = byPrice[run];
+                int low = 0, high = index.length;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    int position = index[mid];
+                    int compared = Double.compare(price[position], afterPrice);
+                    if (compared < 0 || compared == 0 && tmsp[position] <= afterTmsp)
+                        low = mid + 1;
+                    else
+                        high = mid;
+                }
+                ranks[run] = low;
+            }
+            return ranks;
+        }
+
+        /**
+         * Visits positions in ascending price order, equal prices in ascending <i>tmsp</i> order,
+         * starting at the given rank of every run, until the visitor returns <i>false</i>.
+         */
+        void forEachByPriceAscending(int[] startRanks, IntPredicate visitor) {
+            int[] next = startRanks.clone();
+            while (true) {
+                int best = -1;
+                for (int run = 0; run < byPrice.length; run++)
+                    if (next[run] < byPrice[run].length && (best < 0
+                            || before(byPrice[run][next[run]], byPrice[best][next[best]], tmsp, price)))
+                        best = run;
+                if (best < 0 || !visitor.test(byPrice[best][next[best]++]))
+                    return;
+            }
+        }
+
+        /**
+         * Visits positions in descending price order, equal prices
+         * in ascending <i>tmsp</i> order, until the visitor returns <i>false</i>.
+         * <p>Every run is read backwards a group of equal prices at a time,
+         * each group forwards.
+         */
+        void forEachByPriceDescending(IntPredicate visitor) {
+            int runs = byPrice.length;
+            int[] groupStart = new int[runs];
+            int[] groupEnd = new int[runs];
+            int[] next = new int[runs];
+            for (int run = 0; run < runs; run++) {
+                groupEnd[run] = byPrice[run].length;
+                next[run] = groupStart[run] = groupStart(byPrice[run], groupEnd[run]);
+            }
+            while (true) {
+                int best = -1;
+                for (int run = 0; run < runs; run++)
+                    if (next[run] < groupEnd[run] && (best < 0
+                            || beforeDescending(byPrice[run][next[run]], byPrice[best][next[best]])))
+                        best = run;
+                if (best < 0)
+                    return;
+                int position = byPrice[best][next[best]++];
+                if (next[best] == groupEnd[best]) {
+                    groupEnd[best] = groupStart[best];
+                    next[best] = groupStart[best] = groupStart(byPrice[best], groupEnd[best]);
+                }
+                if (!visitor.test(position))
+                    return;
+            }
+        }
+
+        /**
+         * Returns first rank of the group of equal prices ending at <i>end</i>, exclusive.
+         */
+        private int groupStart(int[] index, int end) {
+            int start = Math.max(0, end - 1);
+            while (start > 0 && price[index[start - 1]] == price[index[end - 1]])
+                start--;
+            return start;
+        }
+
+        private boolean beforeDescending(int a, int b) {
+            int compared = Double.compare(price[a], price[b]);
+            return compared > 0 || compared == 0 && tmsp[a] < tmsp[b];
+        }
+
+        /**
+         * Returns snapshot with the prices added, skipping timestamps already present.
+         * <p>Prices newer than the last one are appended in place when the arrays
+         * have room, older ones make the columns rebuilt.
+         */
+        Columns merge(List<CurrencyPrice> added) {
+            return merge(added.stream().mapToLong(CurrencyPrice::getTmsp).toArray(),
+                    added.stream().mapToDouble(CurrencyPrice::getPrice).toArray());
+        }
+
+        /**
+         * Returns snapshot with the prices of both arrays added, sorting the arrays in place.
+         *
+         * @see #merge(List)
+         */
+        Columns merge(long[] addedTmsp, double[] addedPrice) {
+            sortByTmsp(addedTmsp, addedPrice);
+
+            long[] newTmsp = tmsp;
+            double[] newPrice = price;
+            int newSize = size;
+            boolean appendOnly = size == 0 || addedTmsp.length == 0 || addedTmsp[0] > tmsp[size - 1];
+            if (appendOnly) {
+                if (size + addedTmsp.length > tmsp.length) {
+                    int capacity = Math.max(size + addedTmsp.length, tmsp.length + (tmsp.length >> 1));
+                    newTmsp = Arrays.copyOf(tmsp, capacity);
+                    newPrice = Arrays.copyOf(price, capacity);
+                }
+                for (int i = 0; i < addedTmsp.length; i++)
+                    if (i == 0 || addedTmsp[i] != addedTmsp[i - 1]) {
+                        newTmsp[newSize] = addedTmsp[i];
+                        newPrice[newSize++] = addedPrice[i];
+                    }
+            } else {
+                newTmsp = new long[size + addedTmsp.length];
+                newPrice = new double[size + addedTmsp.length];
+                newSize = 0;
+                int i = 0, j = 0;
+                while (i < size || j < addedTmsp.length) {
+                    boolean takeStored = j == addedTmsp.length || i < size && tmsp[i] <= addedTmsp[j];
+                    long next = takeStored ? tmsp[i] : addedTmsp[j];
+                    double nextPrice = takeStored ? price[i++] : addedPrice[j++];
+                    if (newSize == 0 || newTmsp[newSize - 1] != next) {
+                        newTmsp[newSize] = next;
+                        newPrice[newSize++] = nextPrice;
+                    }
+                }
+            }
+            if (newSize == size)
+                return this;
+
+            int[] appended = new int[newSize - size];
+            for (int i = 0; i < appended.length; i++)
+                appended[i] = size + i;
+            int[][] index = appendOnly
+                    ? addRun(byPrice, sortByPrice(appended, newTmsp, newPrice), newTmsp, newPrice)
+                    : new int[][]{sortByPrice(positions(newSize), newTmsp, newPrice)};
+            return new Columns(newTmsp, newPrice, newSize, index);
+        }
+
+        /**
+         * Collects prices in ascending <i>tmsp</i> order, skipping repeated timestamps,
+         * and sorts the price index once they are all added.
+         */
+        static final class Builder {
+            private long[] tmsp = new long[1024];
+            private double[] price = new double[1024];
+            private int size;
+
+            void add(long nextTmsp, double nextPrice) {
+                if (size > 0 && tmsp[size - 1] == nextTmsp)
+                    return;
+                if (size == tmsp.length) {
+                    tmsp = Arrays.copyOf(tmsp, size + (size >> 1));
+                    price = Arrays.copyOf(price, size + (size >> 1));
+                }
+                tmsp[size] = nextTmsp;
+                price[size++] = nextPrice;
+            }
+
+            Columns build() {
+                return new Columns(tmsp, price, size, new int[][]{sortByPrice(positions(size), tmsp, price)});
+            }
+        }
+
+        private static int[] positions(int size) {
+            int[] positions = new int[size];
+            for (int i = 0; i < size; i++)
+                positions[i] = i;
+            return positions;
+        }
+
+        /**
+         * Sorts positions by price, then by <i>tmsp</i>, with a bottom-up merge sort.
+         */
+        private static int[] sortByPrice(int[] positions, long[] tmsp, double[] price) {
+            int[] source = positions.clone();
+            int[] target = new int[source.length];
+            for (int width = 1; width < source.length; width *= 2) {
+                for (int low = 0; low < source.length; low += 2 * width) {
+                    int mid = Math.min(low + width, source.length);
+                    int high = Math.min(low + 2 * width, source.length);
+                    int i = low, j = mid, k = low;
+                    while (i < mid || j < high)
+                        target[k++] = j == high || i < mid && !before(source[j], source[i], tmsp, price)
+                                ? source[i++] : source[j++];
+                }
+                int[] swap = source;
+                source = target;
+                target = swap;
+            }
+            return source;
+        }
+
+        /**
+         * Returns runs with the new run added, merging it first with the last runs
+         * while they are at most twice as long as it.
+         * <p>The runs are not modified, readers of older snapshots keep them.
+         */
+        private static int[][] addRun(int[][] runs, int[] run, long[] tmsp, double[] price) {
+            int count = runs.length;
+            while (count > 0 && runs[count - 1].length <= 2 * run.length)
+                run = mergeByPrice(runs[--count], run, tmsp, price);
+            int[][] added = Arrays.copyOf(runs, count + 1);
+            added[count] = run;
+            return added;
+        }
+
+        private static int[] mergeByPrice(int[] left, int[] right, long[] tmsp, double[] price) {
+            int[] merged = new int[left.length + right.length];
+            int i = 0, j = 0, k = 0;
+            while (i < left.length || j < right.length)
+                merged[k++] = j == right.length || i < left.length && !before(right[j], left[i], tmsp, price)
+                        ? left[i++] : right[j++];
+            return merged;
+        }
+
+        private static boolean before(int a, int b, long[] tmsp, double[] price) {
+            int compared = Double.compare(price[a], price[b]);
+            return compared < 0 || compared == 0 && tmsp[a] < tmsp[b];
+        }
+
+        /**
+         * Sorts both arrays by timestamp, keeping the first of equal timestamps first.
+         */
+        private static void sortByTmsp(long[] tmsp, double[] price) {
+            boolean sorted = true;
+            for (int i = 1; i < tmsp.length && sorted; i++)
+                sorted = tmsp[i - 1] <= tmsp[i];
+            if (sorted)
+                return;
+            Integer[] order = new Integer[tmsp.length];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, (a, b) -> Long.compare(tmsp[a], tmsp[b]));
+            long[] sortedTmsp = new long[tmsp.length];
+            double[] sortedPrice = new double[price.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedTmsp[i] = tmsp[order[i]];
+                sortedPrice[i] = price[order[i]];
+            }
+            System.arraycopy(sortedTmsp, 0, tmsp, 0, tmsp.length);
+            System.arraycopy(sortedPrice, 0, price, 0, price.length);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.cryptocurrency.demo.entities.Price;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PriceRepository
+        extends MongoRepository<CurrencyPrice, String>, PriceRepositoryCustom, PriceStore {
+    List<Price> findByCurrName1OrderByPriceAscTmspAsc(String currName1, Pageable pageable);
+
+    @Query(value = "{ 'currName1': ?0, $or: [ { 'price': { $gt: ?1 } }, { 'price': ?1, 'tmsp': { $gt: ?2 } } ] }",
+            fields = "{ 'tmsp': 1, 'price': 1 }", sort = "{ 'price': 1, 'tmsp': 1 }")
+    List<Price> findByCurrName1SortedAfter(String currName1, double price, long tmsp, Pageable pageable);
+
+    @Query(value = "{ 'currName1': ?0, 'tmsp': { $gte: ?1, $lte: ?2 } }", fields = "{ 'tmsp': 1, 'price': 1 }")
+    List<Price> findByCurrName1InRange(String currName1, long from, long to, Pageable pageable);
+
+    @Query(value = "{ 'currName1': ?0, 'tmsp': { $gte: ?1, $lte: ?2 } }", count = true)
+    long countByCurrName1InRange(String currName1, long from, long to);
+
+    @Query(value = "{ 'currName1': ?0, 'tmsp': { $gte: ?3, $lte: ?4 }, " +
+            "$or: [ { 'price': { $gt: ?1 } }, { 'price': ?1, 'tmsp': { $gt: ?2 } } ] }",
+            fields = "{ 'tmsp': 1, 'price': 1 }", sort = "{ 'price': 1, 'tmsp': 1 }")
+    List<Price> findByCurrName1InRangeSortedAfter(String currName1, double price, long tmsp,
+                                                  long from, long to, Pageable pageable);
+}
@@ -0,0 +1,11 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import org.springframework.data.mongodb.core.BulkOperations;
+
+import java.util.List;
+
+public interface PriceRepositoryCustom {
+    long insertIgnoringDuplicates(List<CurrencyPrice> prices);
+    long insertIgnoringDuplicates(List<CurrencyPrice> prices, BulkOperations.BulkMode mode);
+}
@@ -0,0 +1,70 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class PriceRepositoryCustomImpl implements PriceRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Inserts prices in one unordered bulk write.
+     * <p>Prices already stored for the same pair and timestamp
+     * are skipped instead of failing the whole write.
+     *
+     * @param prices prices to insert.
+     * @return number of inserted prices.
+     * @throws BulkOperationException if any insert failed for another reason.
+     * @see #insertIgnoringDuplicates(List, BulkOperations.BulkMode)
+     */
+    @Override
+    public long insertIgnoringDuplicates(List<CurrencyPrice> prices) throws BulkOperationException {
+        return insertIgnoringDuplicates(prices, BulkOperations.BulkMode.UNORDERED);
+    }
+
+    /**
+     * Inserts prices in one bulk write of the given mode.
+     * <p>Prices already stored for the same pair and timestamp
+     * are skipped instead of failing the whole write. An <i>ordered</i> write
+     * stops at the first duplicate, so the prices after it are written again
+     * with another ordered write.
+     *
+     * @param prices prices to insert.
+     * @param mode whether the server stops at the first failed insert.
+     * @return number of inserted prices.
+     * @throws BulkOperationException if any insert failed for another reason.
+     */
+    @Override
+    public long insertIgnoringDuplicates(List<CurrencyPrice> prices, BulkOperations.BulkMode mode)
+            throws BulkOperationException {
+        long inserted = 0;
+        int from = 0;
+        while (from < prices.size()) {
+            try {
+                return inserted + mongoTemplate.bulkOps(mode, CurrencyPrice.class)
+                        .insert(prices.subList(from, prices.size()))
+                        .execute()
+                        .getInsertedCount();
+            } catch (BulkOperationException e) {
+                boolean duplicatesOnly = e.getErrors().stream()
+                        .map(BulkWriteError::getCode)
+                        .allMatch(code -> ErrorCategory.fromErrorCode(code) == ErrorCategory.DUPLICATE_KEY);
+                if (!duplicatesOnly)
+                    throw e;
+                inserted += e.getResult().getInsertedCount();
+                if (mode == BulkOperations.BulkMode.UNORDERED)
+                    return inserted;
+                from += e.getErrors().get(0).getIndex() + 1;
+            }
+        }
+        return inserted;
+    }
+}
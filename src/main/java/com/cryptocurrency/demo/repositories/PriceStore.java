@@ -0,0 +1,26 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.cryptocurrency.demo.entities.Price;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.BulkOperations;
+
+import java.util.List;
+
+/**
+ * Price histories of currencies as read and written by the services.
+ * <p>{@link PriceRepository} implements it on top of MongoDB,
+ * {@link InMemoryPriceStore} keeps the histories in process memory.
+ *
+ * @see com.cryptocurrency.demo.context.StorageProperties
+ */
+public interface PriceStore {
+    List<Price> findByCurrName1OrderByPriceAscTmspAsc(String currName1, Pageable pageable);
+    List<Price> findByCurrName1SortedAfter(String currName1, double price, long tmsp, Pageable pageable);
+    List<Price> findByCurrName1InRange(String currName1, long from, long to, Pageable pageable);
+    long countByCurrName1InRange(String currName1, long from, long to);
+    List<Price> findByCurrName1InRangeSortedAfter(String currName1, double price, long tmsp,
+                                                  long from, long to, Pageable pageable);
+    long insertIgnoringDuplicates(List<CurrencyPrice> prices);
+    long insertIgnoringDuplicates(List<CurrencyPrice> prices, BulkOperations.BulkMode mode);
+}
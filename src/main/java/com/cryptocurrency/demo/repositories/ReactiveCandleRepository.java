@@ -0,0 +1,14 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.Candle;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveCandleRepository extends ReactiveMongoRepository<Candle, String> {
+    @Query(value = "{ 'currName1': ?0, 'interval': ?1, 'start': { $gte: ?2, $lte: ?3 } }", sort = "{ 'start': 1 }")
+    Flux<Candle> findByCurrName1InRange(String currName1, String interval, long from, long to, Pageable pageable);
+}
@@ -0,0 +1,31 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@Repository
+public interface ReactiveCurrencyRepository extends ReactiveMongoRepository<CryptoCurrency, String> {
+    Mono<Boolean> existsByCurrName1(String currName1);
+
+    @Query(value = "{ 'currName1': ?0 }", fields = "{ 'summary.min': 1 }")
+    Mono<CryptoCurrency> findMinByCurrName1(String currName1);
+
+    @Query(value = "{ 'currName1': ?0 }", fields = "{ 'summary.max': 1 }")
+    Mono<CryptoCurrency> findMaxByCurrName1(String currName1);
+
+    @Query(value = "{ 'currName1': ?0 }", fields = "{ 'summary.count': 1 }")
+    Mono<CryptoCurrency> findCountByCurrName1(String currName1);
+
+    @Query(value = "{ 'currName1': { $in: ?0 } }", fields = "{ 'currName1': 1, 'currName2': 1, " +
+            "'summary.min': 1, 'summary.max': 1, 'summary.count': 1, 'summary.last': 1 }")
+    Flux<CryptoCurrency> findSummariesByCurrName1In(Collection<String> currNames1);
+
+    @Query(value = "{}", fields = "{ 'currName1': 1, 'currName2': 1, 'summary.min.price': 1, 'summary.max.price': 1 }")
+    Flux<CryptoCurrency> streamAllSummaries();
+}
@@ -0,0 +1,60 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Outcome of appending prices of many pairs with bulk writes.
+ *
+ * @see CurrencyService#bulkAppendPrices(List)
+ */
+@Value
+public class BulkWriteReport {
+    /**
+     * Pairs whose prices and summary have been stored, with the appended prices.
+     */
+    List<CryptoCurrency> saved;
+    /**
+     * Every executed bulk write in execution order.
+     */
+    List<Batch> batches;
+
+    /**
+     * Returns whether every bulk write succeeded.
+     *
+     * @return <i>true</i> if no batch failed.
+     */
+    public boolean isSuccessful() {
+        return batches.stream().allMatch(Batch::isSuccessful);
+    }
+
+    @Value
+    public static class Batch {
+        /**
+         * Written collection, e.g. <b>currency_price</b>.
+         */
+        String collection;
+        /**
+         * Number of documents sent in the batch.
+         */
+        int size;
+        /**
+         * Number of documents actually written, duplicates excluded.
+         */
+        long written;
+        /**
+         * Duration of the write in milliseconds.
+         */
+        long millis;
+        /**
+         * Message of the failure, <i>null</i> if the batch succeeded.
+         */
+        String failure;
+
+        public boolean isSuccessful() {
+            return failure == null;
+        }
+    }
+}
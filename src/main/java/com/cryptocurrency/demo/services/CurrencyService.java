@@ -1,15 +1,30 @@
 package com.cryptocurrency.demo.services;
 
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CandleInterval;
 import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.PairSummary;
 import com.cryptocurrency.demo.entities.Price;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CurrencyService {
+    CryptoCurrency appendPrices(CryptoCurrency cryptoCurrency);
     List<CryptoCurrency> saveList(List<CryptoCurrency> list);
+    BulkWriteReport bulkAppendPrices(List<CryptoCurrency> list);
     List<CryptoCurrency> restoreAll();
-    Price getMaxPriceByCurrName1(String currName1);
-    Price getMinPriceByCurrName1(String currName1);
-    List<Price> getPricesByCurrName1Sorted(String currName1);
+    Stream<CryptoCurrency> streamAllSummaries();
+    List<PairSummary> getSummariesByCurrName1(List<String> currNames1);
+    Optional<Price> getMaxPriceByCurrName1(String currName1);
+    Optional<Price> getMaxPriceByCurrName1(String currName1, long from, long to);
+    Optional<Price> getMinPriceByCurrName1(String currName1);
+    Optional<Price> getMinPriceByCurrName1(String currName1, long from, long to);
+    Optional<List<Price>> getPricesByCurrName1Sorted(String currName1, int page, int size);
+    Optional<List<Price>> getPricesByCurrName1Sorted(String currName1, long from, long to, int page, int size);
+    Optional<List<Price>> getPricesByCurrName1SortedAfter(String currName1, Price after, int size);
+    Optional<List<Price>> getPricesByCurrName1SortedAfter(String currName1, long from, long to, Price after, int size);
+    Optional<List<Candle>> getCandles(String currName1, CandleInterval interval, long from, long to, int limit);
     boolean checkCurrency(String currName1);
 }
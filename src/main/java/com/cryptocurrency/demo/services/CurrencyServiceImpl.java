@@ -1,41 +1,239 @@
 package com.cryptocurrency.demo.services;
 
+import com.cryptocurrency.demo.context.IngestionProperties;
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CandleInterval;
 import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.cryptocurrency.demo.entities.PairSummary;
 import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
 import com.cryptocurrency.demo.exceptions.PriceException;
+import com.cryptocurrency.demo.repositories.CandleRepository;
 import com.cryptocurrency.demo.repositories.CurrencyRepository;
+import com.cryptocurrency.demo.repositories.PriceRepository;
+import com.cryptocurrency.demo.repositories.PriceStore;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Example;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Reads and writes currencies and their prices.
+ * <p>Lookups are cached in memory, writes evict the cached entries they make stale.
+ * The Caffeine caches are created by Spring Boot from <b>spring.cache.*</b> properties.
+ * <p>Writes evict through {@link CacheManager} rather than {@code @CacheEvict}, which
+ * would evict only after {@link PricesAppendedEvent} has moved {@link DataVersions} on.
+ * A request in between would get the old cached answer under the new ETag and keep
+ * getting 304 for it until the next append.
+ * <p>Prices are read through {@link PriceStore}, either straight from MongoDB
+ * or from memory depending on <b>storage.mode</b>.
+ *
+ * @see org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration
+ */
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class CurrencyServiceImpl implements CurrencyService {
 
+    /**
+     * Caches keyed by the name of the cryptocurrency.
+     */
+    private static final List<String> CURRENCY_CACHES = List.of("currencyExists", "minPrice", "maxPrice");
+    /**
+     * Caches keyed by several arguments, cleared as a whole.
+     */
+    private static final List<String> RANGE_CACHES = List.of("minPriceInRange", "maxPriceInRange", "sortedPrices");
+
     @Autowired
     private final CurrencyRepository currencyRepository;
+    @Autowired
+    private final PriceStore priceStore;
+    @Autowired
+    private final CandleRepository candleRepository;
+    @Autowired
+    private final ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private final IngestionProperties ingestionProperties;
+    @Autowired
+    private final CacheManager cacheManager;
 
     /**
-     * Saves {@link List}<{@link CryptoCurrency}> to the database
+     * Appends prices of {@link CryptoCurrency} to the database
+     * and then returns saved {@link CryptoCurrency}.
+     * <p>Only prices newer than the last stored one are written, one per timestamp.
+     * They are inserted into the price collection and merged into the stored
+     * {@link PriceSummary} and {@link Candle} rollups, nothing else of the pair is rewritten.
+     * <p>"Newer" is decided by the stored summary, which is written last. A price
+     * skipped as a duplicate by the insert was stored by an earlier append that failed
+     * before its summary was written, so it is still counted into the summary here.
+     * Candles keep the timestamp of their last merged price, so prices such an append
+     * has merged into them already are left out.
+     * <p>The summary is read and then replaced, so only one append per pair may run
+     * at a time, otherwise one of them is lost. {@link IngestionScheduler} never runs
+     * two refreshes of the same pair at once.
+     * <p>Stale cached lookups are evicted, then {@link PricesAppendedEvent} is published
+     * if any price was appended.
+     *
+     * @param cryptoCurrency {@link CryptoCurrency} with prices to append.
+     * @return saved {@link CryptoCurrency} with the appended prices.
+     * @see PriceRepository#insertIgnoringDuplicates(List)
+     * @see CurrencyRepository#upsertSummary(String, String, PriceSummary)
+     * @see CandleRepository#mergeCandles(List)
+     */
+    @Override
+    public CryptoCurrency appendPrices(CryptoCurrency cryptoCurrency) {
+        String currName1 = cryptoCurrency.getCurrName1();
+        String currName2 = cryptoCurrency.getCurrName2();
+        PriceSummary summary = currencyRepository.findSummaryByCurrName1AndCurrName2(currName1, currName2)
+                .map(CryptoCurrency::getSummary)
+                .orElseGet(PriceSummary::new);
+        List<Price> prices = newPrices(cryptoCurrency.getPrices(), summary);
+
+        priceStore.insertIgnoringDuplicates(prices.stream()
+                .map(price -> new CurrencyPrice(currName1, currName2, price))
+                .collect(Collectors.toList()));
+        candleRepository.mergeCandles(rollupNotMerged(List.of(new CryptoCurrency(currName1, currName2, prices))));
+        prices.forEach(summary::add);
+
+        CryptoCurrency saved = currencyRepository.upsertSummary(currName1, currName2, summary);
+        saved.setPrices(prices);
+        evictLookups(List.of(currName1));
+        if (!prices.isEmpty())
+            eventPublisher.publishEvent(new PricesAppendedEvent(currName1, currName2, prices, summary));
+        return saved;
+    }
+
+    /**
+     * Appends prices of each {@link CryptoCurrency} in the list to the database
      * and then returns {@link List} of saved {@link CryptoCurrency}.
+     * <p>Pairs of failed bulk writes are left out of the result and logged.
      *
      * @param list {@link List} to save to the database.
      * @return {@link List} of saved {@link CryptoCurrency}.
-     * @see CurrencyRepository#saveAll(Iterable)
+     * @see #bulkAppendPrices(List)
      */
     @Override
     public List<CryptoCurrency> saveList(List<CryptoCurrency> list) {
-        return currencyRepository.saveAll(list);
+        BulkWriteReport report = bulkAppendPrices(list);
+        if (!report.isSuccessful()) {
+            Set<String> notSaved = list.stream()
+                    .map(currency -> pairOf(currency.getCurrName1(), currency.getCurrName2()))
+                    .collect(Collectors.toCollection(TreeSet::new));
+            report.getSaved().forEach(currency -> notSaved.remove(pairOf(currency.getCurrName1(), currency.getCurrName2())));
+            log.warn("Saving list failed for pairs {}", notSaved);
+        }
+        return report.getSaved();
+    }
+
+    /**
+     * Appends prices of many pairs to the database with a few bulk writes
+     * instead of several writes per pair.
+     * <p>Summaries of all the pairs are read with one query, then new prices,
+     * {@link Candle} rollups and summaries are written in bulk batches of
+     * {@link IngestionProperties#getBatchSize()} documents, unordered unless
+     * {@link IngestionProperties#isBulkOrdered()} is set. Prices of the same pair
+     * spread over several items of the list are merged.
+     * <p>A failed batch does not stop the others. Summaries of pairs with a failed
+     * price or candle batch are not written, so their prices are appended again
+     * on the next call, like after a failed {@link #appendPrices(CryptoCurrency)}:
+     * prices already inserted are skipped as duplicates and candles leave out prices
+     * they have already merged. Cached lookups of all the currencies are evicted,
+     * then {@link PricesAppendedEvent} is published for every pair that has been stored
+     * with new prices.
+     *
+     * @param list {@link List} of {@link CryptoCurrency} with prices to append.
+     * @return {@link BulkWriteReport} with saved pairs and every executed batch.
+     * @see #appendPrices(CryptoCurrency)
+     */
+    @Override
+    public BulkWriteReport bulkAppendPrices(List<CryptoCurrency> list) {
+        BulkOperations.BulkMode mode = ingestionProperties.isBulkOrdered()
+                ? BulkOperations.BulkMode.ORDERED
+                : BulkOperations.BulkMode.UNORDERED;
+        Map<String, List<Price>> pricesByPair = new LinkedHashMap<>();
+        list.forEach(currency -> pricesByPair
+                .computeIfAbsent(pairOf(currency.getCurrName1(), currency.getCurrName2()), pair -> new ArrayList<>())
+                .addAll(Optional.ofNullable(currency.getPrices()).orElse(List.of())));
+        Map<String, PriceSummary> summaries = currencyRepository.findFullSummariesByCurrName1In(list.stream()
+                        .map(CryptoCurrency::getCurrName1)
+                        .collect(Collectors.toSet())).stream()
+                .filter(stored -> stored.getSummary() != null)
+                .collect(Collectors.toMap(
+                        stored -> pairOf(stored.getCurrName1(), stored.getCurrName2()), CryptoCurrency::getSummary));
+
+        List<CryptoCurrency> pairs = new ArrayList<>();
+        pricesByPair.forEach((pair, pairPrices) -> {
+            PriceSummary summary = summaries.getOrDefault(pair, new PriceSummary());
+            List<Price> prices = newPrices(pairPrices, summary);
+            prices.forEach(summary::add);
+            String[] names = pair.split("/", 2);
+            CryptoCurrency currency = new CryptoCurrency(names[0], names[1], prices);
+            currency.setSummary(summary);
+            pairs.add(currency);
+        });
+
+        List<BulkWriteReport.Batch> batches = new ArrayList<>();
+        Set<String> failedPairs = writeInBatches("currency_price", pairs.stream()
+                        .flatMap(currency -> currency.getPrices().stream()
+                                .map(price -> new CurrencyPrice(currency.getCurrName1(), currency.getCurrName2(), price)))
+                        .collect(Collectors.toList()),
+                price -> pairOf(price.getCurrName1(), price.getCurrName2()),
+                prices -> priceStore.insertIgnoringDuplicates(prices, mode),
+                batches);
+        pairs.removeIf(currency -> failedPairs.contains(pairOf(currency.getCurrName1(), currency.getCurrName2())));
+        failedPairs.addAll(writeInBatches("price_candle", rollupNotMerged(pairs),
+                candle -> pairOf(candle.getCurrName1(), candle.getCurrName2()),
+                candles -> candleRepository.mergeCandles(candles, mode),
+                batches));
+        pairs.removeIf(currency -> failedPairs.contains(pairOf(currency.getCurrName1(), currency.getCurrName2())));
+        failedPairs.addAll(writeInBatches("crypto_currency", pairs,
+                currency -> pairOf(currency.getCurrName1(), currency.getCurrName2()),
+                currencies -> {
+                    currencyRepository.upsertSummaries(currencies, mode);
+                    return currencies.size();
+                },
+                batches));
+        pairs.removeIf(currency -> failedPairs.contains(pairOf(currency.getCurrName1(), currency.getCurrName2())));
+
+        evictLookups(list.stream().map(CryptoCurrency::getCurrName1).collect(Collectors.toSet()));
+        pairs.stream()
+                .filter(currency -> !currency.getPrices().isEmpty())
+                .forEach(currency -> eventPublisher.publishEvent(new PricesAppendedEvent(
+                        currency.getCurrName1(), currency.getCurrName2(), currency.getPrices(), currency.getSummary())));
+        log.info("Appended prices of {} pairs in {} bulk writes, {} pairs failed",
+                pairs.size(), batches.size(), failedPairs.size());
+        return new BulkWriteReport(pairs, batches);
     }
 
     /**
      * Returns {@link List} of all {@link CryptoCurrency} in th database.
+     * <p>Prices are not loaded.
      *
      * @return {@link List} of all {@link CryptoCurrency} in th database.
      * @see CurrencyRepository#findAll()
@@ -45,63 +243,388 @@ public class CurrencyServiceImpl implements CurrencyService {
         return currencyRepository.findAll();
     }
 
+    /**
+     * Returns {@link Stream} of all {@link CryptoCurrency} in the database
+     * with min and max price values of their {@link PriceSummary} but without prices.
+     * <p>Currencies are read through a database cursor while the stream is consumed,
+     * so the stream must be closed after use.
+     *
+     * @return {@link Stream} of all {@link CryptoCurrency} with min and max prices only.
+     * @see CurrencyRepository#streamAllSummaries()
+     */
+    @Override
+    public Stream<CryptoCurrency> streamAllSummaries() {
+        return currencyRepository.streamAllSummaries();
+    }
+
+    /**
+     * Returns {@link PairSummary} of each currency with one of the given names,
+     * read with a single query.
+     * <p>Summaries follow the order of <i>currNames1</i>,
+     * names of missing currencies are skipped.
+     *
+     * @param currNames1 names of the cryptocurrencies.
+     * @return {@link List} of summaries of the found cryptocurrencies.
+     * @see CurrencyRepository#findSummariesByCurrName1In(java.util.Collection)
+     */
+    @Override
+    public List<PairSummary> getSummariesByCurrName1(List<String> currNames1) {
+        if (currNames1.isEmpty())
+            return List.of();
+        return currencyRepository.findSummariesByCurrName1In(currNames1).stream()
+                .map(PairSummary::of)
+                .sorted(Comparator.comparingInt(summary -> currNames1.indexOf(summary.getCurrName1())))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Returns max {@link Price} of currency with the given name.
+     * <p>The currency is read with a single query, so it cannot disappear
+     * between checking it and reading its price.
      *
      * @param currName1 name of the cryptocurrency.
-     * @return max {@link Price} of the cryptocurrency with name <i>currName1</i>.
+     * @return max {@link Price} of the cryptocurrency with name <i>currName1</i>,
+     * or {@link Optional#empty()} if there is no such currency.
      * @throws PriceException if the currency has no prices.
-     * @see CurrencyRepository#findByCurrName1(String)
+     * @see CurrencyRepository#findMaxByCurrName1(String)
      */
     @Override
-    public Price getMaxPriceByCurrName1(String currName1) throws PriceException {
-        return currencyRepository.findByCurrName1(currName1).getPrices().stream()
-                .max(Comparator.comparing(price -> Double.valueOf(price.getPrice())))
+    @Cacheable("maxPrice")
+    public Optional<Price> getMaxPriceByCurrName1(String currName1) throws PriceException {
+        return summaryOf(currencyRepository.findMaxByCurrName1(currName1)).map(summary -> Optional.ofNullable(summary.getMax())
                 .orElseThrow(() ->
-                        new PriceException(String.format("Couldn't find min price for currency \"%s\".", currName1)));
+                        new PriceException(String.format("Couldn't find max price for currency \"%s\".", currName1))));
+    }
+
+    /**
+     * Returns max {@link Price} of currency with the given name
+     * among prices with timestamp from <i>from</i> to <i>to</i>, both inclusive.
+     * <p>The range is evaluated by the database using the pair and timestamp index.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param from start of the range, in units of {@link Price#getTmsp()}.
+     * @param to end of the range, in units of {@link Price#getTmsp()}.
+     * @return max {@link Price} of the cryptocurrency with name <i>currName1</i> in the range,
+     * or {@link Optional#empty()} if there is no such currency.
+     * @throws PriceException if the currency has no prices in the range.
+     * @see PriceRepository#findByCurrName1InRange(String, long, long, Pageable)
+     */
+    @Override
+    @Cacheable("maxPriceInRange")
+    public Optional<Price> getMaxPriceByCurrName1(String currName1, long from, long to) throws PriceException {
+        return firstInRange(currName1, from, to, Sort.by(Sort.Order.desc("price"), Sort.Order.asc("tmsp")), "max");
     }
 
     /**
      * Returns min {@link Price} of currency with the given name.
+     * <p>The currency is read with a single query, so it cannot disappear
+     * between checking it and reading its price.
      *
      * @param currName1 name of the cryptocurrency.
-     * @return min {@link Price} of the cryptocurrency with name <i>currName1</i>.
+     * @return min {@link Price} of the cryptocurrency with name <i>currName1</i>,
+     * or {@link Optional#empty()} if there is no such currency.
      * @throws PriceException if the currency has no prices.
-     * @see CurrencyRepository#findByCurrName1(String)
+     * @see CurrencyRepository#findMinByCurrName1(String)
      */
     @Override
-    public Price getMinPriceByCurrName1(String currName1) throws PriceException {
-        return currencyRepository.findByCurrName1(currName1).getPrices().stream()
-                .min(Comparator.comparing(price -> Double.valueOf(price.getPrice())))
+    @Cacheable("minPrice")
+    public Optional<Price> getMinPriceByCurrName1(String currName1) throws PriceException {
+        return summaryOf(currencyRepository.findMinByCurrName1(currName1)).map(summary -> Optional.ofNullable(summary.getMin())
                 .orElseThrow(() ->
-                        new PriceException(String.format("Couldn't find max price for currency \"%s\".", currName1)));
+                        new PriceException(String.format("Couldn't find min price for currency \"%s\".", currName1))));
+    }
+
+    /**
+     * Returns min {@link Price} of currency with the given name
+     * among prices with timestamp from <i>from</i> to <i>to</i>, both inclusive.
+     * <p>The range is evaluated by the database using the pair and timestamp index.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param from start of the range, in units of {@link Price#getTmsp()}.
+     * @param to end of the range, in units of {@link Price#getTmsp()}.
+     * @return min {@link Price} of the cryptocurrency with name <i>currName1</i> in the range,
+     * or {@link Optional#empty()} if there is no such currency.
+     * @throws PriceException if the currency has no prices in the range.
+     * @see PriceRepository#findByCurrName1InRange(String, long, long, Pageable)
+     */
+    @Override
+    @Cacheable("minPriceInRange")
+    public Optional<Price> getMinPriceByCurrName1(String currName1, long from, long to) throws PriceException {
+        return firstInRange(currName1, from, to, Sort.by("price", "tmsp"), "min");
     }
 
     /**
-     * Returns sorted {@link List}<{@link Price}> of currency with
-     * the given name from low price to high price.
+     * Returns one page of {@link Price} of currency with
+     * the given name sorted from low price to high price.
+     * <p>Sorting and paging are done by the database, only the page is transferred.
+     * The number of prices is taken from the currency {@link PriceSummary}.
      *
      * @param currName1 name of the cryptocurrency.
-     * @return sorted {@link List} of cryptocurrency with name <i>currName</i>.
-     * @see CurrencyRepository#findByCurrName1(String)
+     * @param page page number, must not be negative.<br>
+     *             Changed to the last page if <b>{@code page>{number of possible pages}}</b>.
+     * @param size page size, must be positive.
+     * @return sorted page of prices of cryptocurrency with name <i>currName1</i>,
+     * or {@link Optional#empty()} if there is no such currency.
+     * @see CurrencyRepository#findCountByCurrName1(String)
+     * @see PriceRepository#findByCurrName1OrderByPriceAscTmspAsc(String, Pageable)
      */
     @Override
-    public List<Price> getPricesByCurrName1Sorted(String currName1) {
-        return currencyRepository.findByCurrName1(currName1).getPrices().stream()
-                .sorted(Comparator.comparing(price -> Double.valueOf(price.getPrice())))
+    @Cacheable("sortedPrices")
+    public Optional<List<Price>> getPricesByCurrName1Sorted(String currName1, int page, int size) {
+        return summaryOf(currencyRepository.findCountByCurrName1(currName1)).map(summary -> {
+            long count = summary.getCount();
+            long lastPage = count == 0 ? 0 : (count - 1) / size;
+            return priceStore.findByCurrName1OrderByPriceAscTmspAsc(
+                    currName1, PageRequest.of((int) Math.min(page, lastPage), size));
+        });
+    }
+
+    /**
+     * Returns one page of {@link Price} of currency with the given name
+     * and timestamp from <i>from</i> to <i>to</i>, both inclusive,
+     * sorted from low price to high price.
+     * <p>The range is evaluated by the database using the pair and timestamp index.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param from start of the range, in units of {@link Price#getTmsp()}.
+     * @param to end of the range, in units of {@link Price#getTmsp()}.
+     * @param page page number, must not be negative.<br>
+     *             Changed to the last page if <b>{@code page>{number of possible pages}}</b>.
+     * @param size page size, must be positive.
+     * @return sorted page of prices of cryptocurrency with name <i>currName1</i> in the range,
+     * or {@link Optional#empty()} if there is no such currency.
+     * @see PriceRepository#countByCurrName1InRange(String, long, long)
+     * @see PriceRepository#findByCurrName1InRange(String, long, long, Pageable)
+     */
+    @Override
+    @Cacheable("sortedPrices")
+    public Optional<List<Price>> getPricesByCurrName1Sorted(String currName1, long from, long to, int page, int size) {
+        long count = priceStore.countByCurrName1InRange(currName1, from, to);
+        if (count == 0 && !currencyRepository.existsByCurrName1(currName1))
+            return Optional.empty();
+        long lastPage = count == 0 ? 0 : (count - 1) / size;
+        return Optional.of(priceStore.findByCurrName1InRange(currName1, from, to,
+                PageRequest.of((int) Math.min(page, lastPage), size, Sort.by("price", "tmsp"))));
+    }
+
+    /**
+     * Returns up to <i>size</i> {@link Price} of currency with the given name
+     * that follow <i>after</i> in the low to high price order.
+     * <p>Prices with equal value are ordered by timestamp, so a page
+     * can be continued from its last element without skipping anything.
+     * <p>The currency is looked up only if no price was found.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param after last price of the previous page.
+     * @param size page size, must be positive.
+     * @return sorted page of prices of cryptocurrency with name <i>currName1</i>,
+     * or {@link Optional#empty()} if there is no such currency.
+     * @see PriceRepository#findByCurrName1SortedAfter(String, double, long, Pageable)
+     * @see CurrencyRepository#existsByCurrName1(String)
+     */
+    @Override
+    @Cacheable("sortedPrices")
+    public Optional<List<Price>> getPricesByCurrName1SortedAfter(String currName1, Price after, int size) {
+        List<Price> prices = priceStore.findByCurrName1SortedAfter(
+                currName1, after.getPrice(), after.getTmsp(), PageRequest.of(0, size));
+        if (prices.isEmpty() && !currencyRepository.existsByCurrName1(currName1))
+            return Optional.empty();
+        return Optional.of(prices);
+    }
+
+    /**
+     * Returns up to <i>size</i> {@link Price} of currency with the given name
+     * and timestamp from <i>from</i> to <i>to</i>, both inclusive,
+     * that follow <i>after</i> in the low to high price order.
+     * <p>The currency is looked up only if no price was found.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param from start of the range, in units of {@link Price#getTmsp()}.
+     * @param to end of the range, in units of {@link Price#getTmsp()}.
+     * @param after last price of the previous page.
+     * @param size page size, must be positive.
+     * @return sorted page of prices of cryptocurrency with name <i>currName1</i> in the range,
+     * or {@link Optional#empty()} if there is no such currency.
+     * @see PriceRepository#findByCurrName1InRangeSortedAfter(String, double, long, long, long, Pageable)
+     */
+    @Override
+    @Cacheable("sortedPrices")
+    public Optional<List<Price>> getPricesByCurrName1SortedAfter(String currName1, long from, long to,
+                                                                 Price after, int size) {
+        List<Price> prices = priceStore.findByCurrName1InRangeSortedAfter(
+                currName1, after.getPrice(), after.getTmsp(), from, to, PageRequest.of(0, size));
+        if (prices.isEmpty() && !currencyRepository.existsByCurrName1(currName1))
+            return Optional.empty();
+        return Optional.of(prices);
+    }
+
+    /**
+     * Returns up to <i>limit</i> {@link Candle} of currency with the given name
+     * starting from <i>from</i> to <i>to</i>, both inclusive, ordered by start.
+     * <p>Candles are read from the rollups, raw prices are not touched.
+     * The candle containing <i>from</i> is included.
+     * The currency is looked up only if no candle was found.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param interval candle interval.
+     * @param from start of the range, in units of {@link Price#getTmsp()}.
+     * @param to end of the range, in units of {@link Price#getTmsp()}.
+     * @param limit max number of candles, must be positive.
+     * @return candles of cryptocurrency with name <i>currName1</i> in the range,
+     * or {@link Optional#empty()} if there is no such currency.
+     * @see CandleRepository#findByCurrName1InRange(String, String, long, long, Pageable)
+     */
+    @Override
+    public Optional<List<Candle>> getCandles(String currName1, CandleInterval interval, long from, long to, int limit) {
+        long start = from == Long.MIN_VALUE ? from : interval.startOf(from);
+        List<Candle> candles = candleRepository.findByCurrName1InRange(
+                currName1, interval.getName(), start, to, PageRequest.of(0, limit));
+        if (candles.isEmpty() && !currencyRepository.existsByCurrName1(currName1))
+            return Optional.empty();
+        return Optional.of(candles);
+    }
+
+    /**
+     * Returns the first {@link Price} of currency with the given name
+     * and timestamp in the range in the given order.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param from start of the range.
+     * @param to end of the range.
+     * @param sort order of prices.
+     * @param kind <b>min</b> or <b>max</b>, used in the exception message.
+     * @return the first {@link Price}, or {@link Optional#empty()} if there is no such currency.
+     * @throws PriceException if the currency has no prices in the range.
+     */
+    private Optional<Price> firstInRange(String currName1, long from, long to, Sort sort, String kind)
+            throws PriceException {
+        List<Price> prices = priceStore.findByCurrName1InRange(currName1, from, to, PageRequest.of(0, 1, sort));
+        if (!prices.isEmpty())
+            return Optional.of(prices.get(0));
+        if (!currencyRepository.existsByCurrName1(currName1))
+            return Optional.empty();
+        throw new PriceException(String.format(
+                "Couldn't find %s price for currency \"%s\" from %d to %d.", kind, currName1, from, to));
+    }
+
+    /**
+     * Writes documents in batches of {@link IngestionProperties#getBatchSize()}
+     * and adds every batch to the report.
+     *
+     * @param collection name of the written collection.
+     * @param documents documents to write.
+     * @param pairOf name of the pair a document belongs to.
+     * @param write writes a batch and returns the number of written documents.
+     * @param batches report of executed batches.
+     * @return names of pairs having a document in a failed batch.
+     */
+    private <T> Set<String> writeInBatches(String collection, List<T> documents, Function<T, String> pairOf,
+                                           ToLongFunction<List<T>> write, List<BulkWriteReport.Batch> batches) {
+        int batchSize = Math.max(1, ingestionProperties.getBatchSize());
+        Set<String> failedPairs = new HashSet<>();
+        for (int from = 0; from < documents.size(); from += batchSize) {
+            List<T> batch = documents.subList(from, Math.min(from + batchSize, documents.size()));
+            long start = System.nanoTime();
+            try {
+                long written = write.applyAsLong(batch);
+                batches.add(new BulkWriteReport.Batch(
+                        collection, batch.size(), written, (System.nanoTime() - start) / 1_000_000, null));
+            } catch (RuntimeException e) {
+                log.warn("Bulk write of {} documents to {} failed", batch.size(), collection, e);
+                batch.stream().map(pairOf).forEach(failedPairs::add);
+                batches.add(new BulkWriteReport.Batch(
+                        collection, batch.size(), 0, (System.nanoTime() - start) / 1_000_000, e.getMessage()));
+            }
+        }
+        return failedPairs;
+    }
+
+    /**
+     * Evicts cached lookups of the given currencies and all cached range lookups.
+     * <p>Runs after the write and before {@link PricesAppendedEvent} is published.
+     *
+     * @param currNames1 names of the cryptocurrencies with appended prices.
+     */
+    private void evictLookups(Collection<String> currNames1) {
+        CURRENCY_CACHES.stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .forEach(cache -> currNames1.forEach(cache::evict));
+        RANGE_CACHES.stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .forEach(Cache::clear);
+    }
+
+    /**
+     * Builds {@link Candle} rollups of the prices of every pair, leaving out
+     * prices the stored candles already contain.
+     * <p>Stored candles overlap new prices only if an earlier append merged them
+     * and then failed before writing the summary. The stored candles are read
+     * with one query, which normally finds nothing.
+     *
+     * @param pairs pairs with their new prices in ascending <i>tmsp</i> order.
+     * @return candles to merge.
+     * @see CandleRepository#findMergedSince(List)
+     */
+    private List<Candle> rollupNotMerged(List<CryptoCurrency> pairs) {
+        Map<String, List<Candle>> merged = candleRepository.findMergedSince(pairs.stream()
+                        .filter(currency -> !currency.getPrices().isEmpty())
+                        .map(currency -> new CurrencyPrice(
+                                currency.getCurrName1(), currency.getCurrName2(), currency.getPrices().get(0)))
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.groupingBy(candle -> pairOf(candle.getCurrName1(), candle.getCurrName2())));
+        return pairs.stream()
+                .flatMap(currency -> Candle.rollup(currency.getCurrName1(), currency.getCurrName2(),
+                        currency.getPrices(),
+                        merged.getOrDefault(pairOf(currency.getCurrName1(), currency.getCurrName2()), List.of()))
+                        .stream())
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns prices newer than the last one of the summary,
+     * one per timestamp, in ascending <i>tmsp</i> order.
+     *
+     * @param prices prices to filter, may be <i>null</i>.
+     * @param summary stored summary of the pair.
+     * @return new prices.
+     */
+    private static List<Price> newPrices(List<Price> prices, PriceSummary summary) {
+        Long lastTmsp = summary.getLast() != null ? summary.getLast().getTmsp() : null;
+        Map<Long, Price> newPrices = Optional.ofNullable(prices).orElse(List.of()).stream()
+                .filter(price -> lastTmsp == null || price.getTmsp() > lastTmsp)
+                .collect(Collectors.toMap(Price::getTmsp, Function.identity(), (first, second) -> first, TreeMap::new));
+        return new ArrayList<>(newPrices.values());
+    }
+
+    private static String pairOf(String currName1, String currName2) {
+        return currName1 + '/' + currName2;
+    }
+
+    /**
+     * Returns {@link PriceSummary} of the currency read with a projection,
+     * so only the projected fields of it are set.
+     *
+     * @param currency currency read from the database.
+     * @return {@link PriceSummary} of the <i>currency</i>, empty one if it has none,
+     * or {@link Optional#empty()} if there is no such currency.
+     */
+    private Optional<PriceSummary> summaryOf(Optional<CryptoCurrency> currency) {
+        return currency.map(found -> Optional.ofNullable(found.getSummary()).orElseGet(PriceSummary::new));
+    }
+
     /**
      * Checks if currency with the given name exists in the database.
      *
      * @param currName1 name of the cryptocurrency.
      * @return <b>true</b> if cryptocurrency with name <i>currName1</i> exists,
      * <b>false</b> otherwise.
-     * @see CurrencyRepository#exists(Example)
+     * @see CurrencyRepository#existsByCurrName1(String)
      */
     @Override
+    @Cacheable("currencyExists")
     public boolean checkCurrency(String currName1) {
-        return currencyRepository.exists(Example.of(new CryptoCurrency(currName1, null)));
+        return currencyRepository.existsByCurrName1(currName1);
     }
 }
@@ -0,0 +1,94 @@
+package com.cryptocurrency.demo.services;
+
+import lombok.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory versions of the price data of every currency, bumped whenever
+ * prices are appended.
+ * <p>Versions let HTTP clients revalidate cached responses without
+ * the data being read again. They start over on every startup,
+ * the startup id in the ETag keeps them apart between runs.
+ */
+@Component
+public class DataVersions {
+
+    private final String bootId = UUID.randomUUID().toString().substring(0, 8);
+    private final Instant bootTime = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicReference<Instant> lastModified = new AtomicReference<>(bootTime);
+
+    /**
+     * Bumps version of the currency whose prices were appended.
+     * <p><i>Last-Modified</i> has a resolution of one second, so every bump gets
+     * a time at least a second after the previous bump of any currency. Otherwise a client
+     * revalidating with <i>If-Modified-Since</i> only would miss a change
+     * made within the same second as its copy.
+     *
+     * @param event appended prices.
+     */
+    @EventListener
+    public void onPricesAppended(PricesAppendedEvent event) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Instant modified = lastModified.updateAndGet(previous ->
+                now.isAfter(previous) ? now : previous.plusSeconds(1));
+        versions.merge(event.getCurrName1(), new Version(1, modified),
+                (current, bump) -> new Version(current.getCounter() + 1, modified));
+        total.incrementAndGet();
+    }
+
+    /**
+     * Returns version of the data of all currencies.
+     *
+     * @return version of all data.
+     */
+    public Version ofAll() {
+        return new Version(total.get(), lastModified.get());
+    }
+
+    /**
+     * Returns combined version of the data of the given currencies.
+     * <p>Counters only grow, so their sum changes whenever any of the currencies changes.
+     *
+     * @param currNames1 names of the cryptocurrencies.
+     * @return version of their data.
+     */
+    public Version of(Collection<String> currNames1) {
+        long counter = 0;
+        Instant modified = bootTime;
+        for (String currName1 : currNames1) {
+            Version version = versions.getOrDefault(currName1, new Version(0, bootTime));
+            counter += version.getCounter();
+            if (version.getLastModified().isAfter(modified))
+                modified = version.getLastModified();
+        }
+        return new Version(counter, modified);
+    }
+
+    /**
+     * Returns entity tag of the data in the given version.
+     *
+     * @param version data version.
+     * @return quoted entity tag.
+     */
+    public String eTagOf(Version version) {
+        return '"' + bootId + '-' + version.getCounter() + '"';
+    }
+
+    @Value
+    public static class Version {
+        long counter;
+        Instant lastModified;
+    }
+}
@@ -3,7 +3,9 @@ package com.cryptocurrency.demo.services;
 import com.cryptocurrency.demo.entities.CryptoCurrency;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface ExternalOperationsService {
     CryptoCurrency fetchAndSave(String symbol1, String symbol2, String body) throws IOException;
+    CompletableFuture<CryptoCurrency> fetchAndSaveAsync(String symbol1, String symbol2, String body);
 }
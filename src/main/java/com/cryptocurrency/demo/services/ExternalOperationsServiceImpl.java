@@ -1,34 +1,67 @@
 package com.cryptocurrency.demo.services;
 
+import com.cryptocurrency.demo.context.IngestionProperties;
 import com.cryptocurrency.demo.entities.CryptoCurrency;
 import com.cryptocurrency.demo.entities.Price;
-import com.cryptocurrency.demo.repositories.CurrencyRepository;
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Example;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 @RequiredArgsConstructor
 @Service
 public class ExternalOperationsServiceImpl implements ExternalOperationsService {
 
+    private static final TypeAdapter<Price> PRICE_ADAPTER = new Gson().getAdapter(Price.class);
+
+    @Autowired
+    private final CurrencyService currencyService;
+    @Autowired
+    private final HttpClient httpClient;
     @Autowired
-    private final CurrencyRepository currencyRepository;
+    private final ExecutorService ingestionExecutor;
+    @Autowired
+    private final IngestionProperties properties;
+    @Autowired
+    private final MeterRegistry meterRegistry;
 
     /**
      * Fetches data about the cryptocurrency from <a href="https://cex.io">cex.io</a>
-     * and then saves it to the database.
+     * and then appends new prices to the database.
+     * <p>Requests go through the shared {@link HttpClient}, so connections
+     * are reused, and accept gzipped responses.
+     * <p>The response is parsed as a stream and prices are appended in batches
+     * of {@link IngestionProperties#getBatchSize()}, so memory use does not
+     * depend on the response size. Batches rely on the API returning prices
+     * in ascending <i>tmsp</i> order.
+     * <p>Every fetch is timed as <b>ingestion.fetch</b> tagged with the pair, outcome
+     * and exception, the size of every response is recorded as
+     * <b>ingestion.response.bytes</b> and <b>ingestion.response.prices</b>.
      *
      * @param symbol1 primary currency name.
      * @param symbol2 secondary currency name. The currency to buy the
@@ -41,51 +74,188 @@ public class ExternalOperationsServiceImpl implements ExternalOperationsService
      *      "maxRespArrSize": 100
      *  }
      * }</pre>
-     * @return the saved {@link CryptoCurrency}.
-     * @throws IOException if exception occurred with one of the used tools.
+     * @return the saved {@link CryptoCurrency} with the summary of all appended prices
+     * and the prices of the last batch.
+     * @throws IOException if exception occurred with one of the used tools
+     * or the API responded with an error status.
      * @see <a href="https://cex.io/rest-api#chart">https://cex.io/rest-api#chart</a>
-     * @see CurrencyRepository
+     * @see CurrencyService#bulkAppendPrices(List)
      */
     @Override
     public CryptoCurrency fetchAndSave(String symbol1, String symbol2, String body) throws IOException {
-        URL url = new URL(String.format("https://cex.io/api/price_stats/%s/%s", symbol1, symbol2));
-        HttpURLConnection con = (HttpURLConnection)url.openConnection();
-        con.setRequestMethod("POST");
-        con.setRequestProperty("Content-Type", "application/json; utf-8");
-        con.setRequestProperty("Accept", "application/json");
-        con.setDoOutput(true);
-        try(OutputStream os = con.getOutputStream()) {
-            byte[] input = body.getBytes(StandardCharsets.UTF_8);
-            os.write(input, 0, input.length);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        String exception = "none";
+        try {
+            CryptoCurrency saved = fetchAndAppend(symbol1, symbol2, body);
+            outcome = "success";
+            return saved;
+        } catch (IOException | RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("ingestion.fetch",
+                    "pair", symbol1 + '/' + symbol2, "outcome", outcome, "exception", exception));
         }
-        try(BufferedReader br = new BufferedReader(
-                new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8))) {
-            StringBuilder response = new StringBuilder();
-            String responseLine;
-            while ((responseLine = br.readLine()) != null) {
-                response.append(responseLine.trim());
-            }
+    }
 
-            List<Price> prices = JsonToList(response.toString());
+    /**
+     * Fetches prices of the pair and appends them, without timing it.
+     *
+     * @see #fetchAndSave(String, String, String)
+     */
+    private CryptoCurrency fetchAndAppend(String symbol1, String symbol2, String body) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create(String.format("%s/price_stats/%s/%s", properties.getApiUrl(), symbol1, symbol2)))
+                .timeout(properties.getReadTimeout())
+                .header("Content-Type", "application/json; utf-8")
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("Fetching %s/%s was interrupted", symbol1, symbol2));
+        }
+        ByteCounter received = new ByteCounter(response.body());
+        try(JsonReader reader = new JsonReader(
+                new InputStreamReader(decode(response.headers(), received), StandardCharsets.UTF_8))) {
+            if (response.statusCode() / 100 != 2)
+                throw new IOException(String.format("Fetching %s/%s failed with HTTP status %d",
+                        symbol1, symbol2, response.statusCode()));
+            return appendInBatches(symbol1, symbol2, reader);
+        } finally {
+            meterRegistry.summary("ingestion.response.bytes", "pair", symbol1 + '/' + symbol2)
+                    .record(received.count);
+        }
+    }
 
-            CryptoCurrency cryptoCurrency = currencyRepository.findOne(
-                    Example.of(new CryptoCurrency(symbol1, symbol2))).
-                    orElseGet(() -> new CryptoCurrency(symbol1, symbol2));
+    /**
+     * Runs {@link #fetchAndSave(String, String, String)} on the ingestion executor,
+     * so several pairs can be fetched at the same time.
+     *
+     * @param symbol1 primary currency name.
+     * @param symbol2 secondary currency name.
+     * @param body configurations, what data to fetch.
+     * @return future completed with the saved {@link CryptoCurrency},
+     * or exceptionally with {@link UncheckedIOException} if fetching failed.
+     */
+    @Override
+    public CompletableFuture<CryptoCurrency> fetchAndSaveAsync(String symbol1, String symbol2, String body) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetchAndSave(symbol1, symbol2, body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, ingestionExecutor);
+    }
 
-            cryptoCurrency.setPrices(prices);
-            return currencyRepository.save(cryptoCurrency);
+    /**
+     * Returns response body stream, unpacking it if the server sent it gzipped.
+     *
+     * @param headers response headers of the API.
+     * @param body response body as received.
+     * @return decoded response body.
+     * @throws IOException if gzip header is malformed.
+     */
+    private InputStream decode(HttpHeaders headers, InputStream body) throws IOException {
+        boolean gzipped = headers.firstValue("Content-Encoding")
+                .map("gzip"::equalsIgnoreCase)
+                .orElse(false);
+        return gzipped ? new GZIPInputStream(body) : body;
+    }
+
+    /**
+     * Reads json array of prices element by element and appends them
+     * to the database every {@link IngestionProperties#getBatchSize()} prices.
+     * <p>The currency is saved even if the array is empty.
+     *
+     * @param symbol1 primary currency name.
+     * @param symbol2 secondary currency name.
+     * @param reader reader positioned at the start of the array.
+     * @return {@link CryptoCurrency} saved by the last batch.
+     * @throws IOException if the json is malformed or a batch was not stored.
+     * @see #append(String, String, List)
+     */
+    CryptoCurrency appendInBatches(String symbol1, String symbol2, JsonReader reader) throws IOException {
+        int batchSize = Math.max(properties.getBatchSize(), 1);
+        List<Price> batch = new ArrayList<>(Math.min(batchSize, 1024));
+        CryptoCurrency saved = null;
+        long parsed = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            batch.add(PRICE_ADAPTER.read(reader));
+            if (batch.size() == batchSize) {
+                parsed += batch.size();
+                saved = append(symbol1, symbol2, batch);
+                batch = new ArrayList<>(Math.min(batchSize, 1024));
+            }
         }
+        reader.endArray();
+        parsed += batch.size();
+        if (!batch.isEmpty() || saved == null)
+            saved = append(symbol1, symbol2, batch);
+        meterRegistry.summary("ingestion.response.prices", "pair", symbol1 + '/' + symbol2).record(parsed);
+        return saved;
     }
 
     /**
-     * Decodes json string to {@link List}<{@link Price}>
+     * Appends one batch of prices of the pair with bulk writes.
+     * <p>Every bulk write of the {@link BulkWriteReport} is timed as
+     * <b>ingestion.bulk.write</b> tagged with the collection and outcome.
+     * A failed write fails the batch, its prices are appended again
+     * by the next fetch.
      *
-     * @param jsonString json string.
-     * @return {@link List} of {@link Price}
-     * @see Gson
+     * @param symbol1 primary currency name.
+     * @param symbol2 secondary currency name.
+     * @param prices prices of the batch.
+     * @return saved {@link CryptoCurrency} with the appended prices.
+     * @throws IOException if any bulk write of the batch failed.
+     * @see CurrencyService#bulkAppendPrices(List)
      */
-    private List<Price> JsonToList(String jsonString) {
-        Gson g = new Gson();
-        return g.fromJson(jsonString, new TypeToken<List<Price>>(){}.getType());
+    private CryptoCurrency append(String symbol1, String symbol2, List<Price> prices) throws IOException {
+        BulkWriteReport report = currencyService.bulkAppendPrices(List.of(new CryptoCurrency(symbol1, symbol2, prices)));
+        report.getBatches().forEach(batch -> meterRegistry.timer("ingestion.bulk.write",
+                        "collection", batch.getCollection(), "outcome", batch.isSuccessful() ? "success" : "failure")
+                .record(batch.getMillis(), TimeUnit.MILLISECONDS));
+        Optional<String> failure = report.getBatches().stream()
+                .map(BulkWriteReport.Batch::getFailure)
+                .filter(Objects::nonNull)
+                .findFirst();
+        if (failure.isPresent() || report.getSaved().isEmpty())
+            throw new IOException(String.format("Appending prices of %s/%s failed: %s",
+                    symbol1, symbol2, failure.orElse("pair not saved")));
+        return report.getSaved().get(0);
+    }
+
+    /**
+     * Counts bytes read from the wrapped stream.
+     */
+    private static class ByteCounter extends FilterInputStream {
+        private long count;
+
+        ByteCounter(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0)
+                count++;
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0)
+                count += read;
+            return read;
+        }
     }
 }
@@ -0,0 +1,26 @@
+package com.cryptocurrency.demo.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts prices appended to the database per pair as <b>ingestion.prices.appended</b>.
+ * <p>Prices are counted once they are part of the pair summary, i.e. prices not newer
+ * than the last summarized one are not counted, and prices stored by an append that
+ * failed before its summary was written are counted when a later append summarizes them.
+ */
+@RequiredArgsConstructor
+@Component
+public class IngestionMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    @EventListener
+    public void onPricesAppended(PricesAppendedEvent event) {
+        meterRegistry.counter("ingestion.prices.appended",
+                        "pair", event.getCurrName1() + '/' + event.getCurrName2())
+                .increment(event.getPrices().size());
+    }
+}
@@ -0,0 +1,143 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.context.IngestionProperties;
+import com.cryptocurrency.demo.context.IngestionProperties.Pair;
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically refreshes prices of the pairs configured in {@link IngestionProperties}.
+ * <p>Each pair is refreshed on its own interval. The next refresh is scheduled
+ * only after the previous one has finished, a failing pair is retried
+ * with exponential backoff, and every delay gets a random jitter
+ * so pairs do not hit the API at the same moment.
+ * <p>The first refresh of every pair starts right after startup in the background,
+ * the pair is <i>warming up</i> until it has been refreshed successfully once.
+ * <p>With {@link IngestionProperties#isSchedulingEnabled()} off nothing is fetched,
+ * not even on startup.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class IngestionScheduler {
+
+    private final ExternalOperationsService operationsService;
+    private final IngestionProperties properties;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final Map<String, CompletableFuture<CryptoCurrency>> running = new ConcurrentHashMap<>();
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    private final Set<String> warmingUp = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Starts the first refresh of every configured pair without blocking startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isSchedulingEnabled())
+            return;
+        properties.getPairs().forEach(pair -> {
+            warmingUp.add(pair.toString());
+            schedule(pair, Duration.ZERO);
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Refreshes the pair right away.
+     * <p>If the pair is being refreshed already, no new fetch is started
+     * and the running one is returned instead.
+     * <p>A fetch that cannot even be started, e.g. rejected by the executor,
+     * completes the returned future exceptionally like a failed one.
+     *
+     * @param pair configured pair.
+     * @return future completed when the pair is saved.
+     */
+    public CompletableFuture<CryptoCurrency> refresh(Pair pair) {
+        CompletableFuture<CryptoCurrency> refresh = new CompletableFuture<>();
+        CompletableFuture<CryptoCurrency> current = running.putIfAbsent(pair.toString(), refresh);
+        if (current != null)
+            return current;
+        CompletableFuture<CryptoCurrency> fetch;
+        try {
+            fetch = operationsService.fetchAndSaveAsync(pair.getSymbol1(), pair.getSymbol2(), properties.requestBody());
+        } catch (RuntimeException e) {
+            fetch = CompletableFuture.failedFuture(e);
+        }
+        fetch.whenComplete((saved, e) -> {
+            running.remove(pair.toString(), refresh);
+            if (e != null)
+                refresh.completeExceptionally(e);
+            else
+                refresh.complete(saved);
+        });
+        return refresh;
+    }
+
+    /**
+     * Returns pairs that have not been refreshed successfully since startup.
+     *
+     * @return unmodifiable view of pair names, e.g. <i>BTC/USD</i>.
+     */
+    public Set<String> getWarmingUp() {
+        return Collections.unmodifiableSet(warmingUp);
+    }
+
+    /**
+     * Returns delay before the next refresh of a pair: its interval after a success,
+     * doubled for each failure in a row up to {@link IngestionProperties#getMaxBackoff()}
+     * (but never below the interval), randomly shifted by up to
+     * {@link IngestionProperties#getRefreshJitter()} of itself.
+     *
+     * @param interval refresh interval of the pair.
+     * @param failures number of failed refreshes in a row.
+     * @return delay before the next refresh.
+     */
+    Duration nextDelay(Duration interval, int failures) {
+        Duration delay = interval;
+        for (int i = 0; i < failures && delay.compareTo(properties.getMaxBackoff()) < 0; i++)
+            delay = delay.multipliedBy(2);
+        if (failures > 0 && delay.compareTo(properties.getMaxBackoff()) > 0)
+            delay = interval.compareTo(properties.getMaxBackoff()) > 0 ? interval : properties.getMaxBackoff();
+        double jitter = properties.getRefreshJitter() * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis(Math.round(delay.toMillis() * (1 + jitter)));
+    }
+
+    private void schedule(Pair pair, Duration delay) {
+        if (!scheduler.isShutdown())
+            scheduler.schedule(() -> run(pair), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void run(Pair pair) {
+        refresh(pair).whenComplete((saved, e) -> {
+            int failed = e == null ? 0 : failures.merge(pair.toString(), 1, Integer::sum);
+            if (e == null) {
+                failures.remove(pair.toString());
+                if (warmingUp.remove(pair.toString()))
+                    log.info("Warmed up {}", pair);
+            } else
+                log.warn("Refreshing {} failed {} time(s) in a row", pair, failed, e);
+            schedule(pair, nextDelay(properties.refreshIntervalOf(pair), failed));
+        });
+    }
+}
@@ -0,0 +1,34 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.repositories.InMemoryPriceStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports background writes of {@link InMemoryPriceStore} as the <b>priceStore</b>
+ * health component when <b>storage.mode=memory</b>.
+ * <p>The component is down once any price has failed every write attempt:
+ * it is served from memory but missing in MongoDB, so it is lost on restart.
+ *
+ * @see InMemoryPriceStore#getLostPrices()
+ */
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(prefix = "storage", name = "mode", havingValue = "memory")
+public class PriceStoreHealthIndicator extends AbstractHealthIndicator {
+
+    private final InMemoryPriceStore priceStore;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        long lostPrices = priceStore.getLostPrices();
+        (lostPrices > 0 ? builder.down() : builder.up())
+                .withDetail("pendingWrites", priceStore.getPendingWrites())
+                .withDetail("lostPrices", lostPrices);
+        if (priceStore.getLastWriteFailure() != null)
+            builder.withDetail("lastWriteFailure", priceStore.getLastWriteFailure());
+    }
+}
@@ -0,0 +1,217 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.context.StreamingProperties;
+import com.cryptocurrency.demo.context.StreamingProperties.Overflow;
+import com.cryptocurrency.demo.entities.PriceUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes appended prices to subscribers over server-sent events.
+ * <p>Every subscriber has its own bounded buffer drained by a small shared pool,
+ * so a slow client never delays ingestion or other clients. When the buffer is full
+ * either the oldest update is dropped or the subscriber is disconnected,
+ * see {@link StreamingProperties#getOverflow()}.
+ * <p>At most {@link StreamingProperties#getMaxSubscribers()} subscriptions are open at once,
+ * each one holds a connection and a buffer until it ends.
+ */
+@Slf4j
+@Service
+public class PriceStreamService {
+
+    private final StreamingProperties properties;
+    private final ExecutorService sender;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberTotal = new AtomicInteger();
+
+    public PriceStreamService(StreamingProperties properties) {
+        this.properties = properties;
+        this.sender = Executors.newFixedThreadPool(properties.getSenderThreads());
+    }
+
+    /**
+     * Subscribes to new prices of the given currencies.
+     * <p>Returns empty {@link Optional} if {@link StreamingProperties#getMaxSubscribers()}
+     * subscriptions are already open.
+     *
+     * @param currNames1 names of the cryptocurrencies.
+     * @return emitter of <b>price</b> events carrying {@link PriceUpdate}.
+     */
+    public Optional<SseEmitter> subscribe(Collection<String> currNames1) {
+        return register(new SseEmitter(properties.getTimeout().toMillis()), currNames1)
+                .map(Subscriber::getEmitter);
+    }
+
+    @EventListener
+    public void onPricesAppended(PricesAppendedEvent event) {
+        Set<Subscriber> pairSubscribers = subscribers.get(event.getCurrName1());
+        if (pairSubscribers == null || pairSubscribers.isEmpty())
+            return;
+        PriceUpdate update = new PriceUpdate(event.getCurrName1(), event.getCurrName2(), event.getPrices(),
+                event.getSummary().getMin(), event.getSummary().getMax());
+        pairSubscribers.forEach(subscriber -> subscriber.offer(update));
+    }
+
+    /**
+     * Returns number of subscriptions to the currency.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @return number of its subscribers.
+     */
+    public int subscriberCount(String currName1) {
+        return subscribers.getOrDefault(currName1, Set.of()).size();
+    }
+
+    /**
+     * Returns number of open subscriptions.
+     *
+     * @return number of subscribers of all currencies.
+     */
+    public int subscriberCount() {
+        return subscriberTotal.get();
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        subscribers.values().forEach(pairSubscribers ->
+                pairSubscribers.forEach(subscriber -> subscriber.getEmitter().complete()));
+    }
+
+    /**
+     * Registers subscriber for the emitter and removes it once the emitter is done.
+     * <p>Registers nothing if the limit of subscribers is reached.
+     *
+     * @param emitter emitter of the subscription.
+     * @param currNames1 names of the cryptocurrencies.
+     * @return registered subscriber, empty if there are too many.
+     */
+    Optional<Subscriber> register(SseEmitter emitter, Collection<String> currNames1) {
+        if (subscriberTotal.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberTotal.decrementAndGet();
+            log.warn("Rejecting subscriber of {}, {} subscribers are open", currNames1, properties.getMaxSubscribers());
+            return Optional.empty();
+        }
+        Subscriber subscriber = new Subscriber(emitter, List.copyOf(currNames1));
+        subscriber.getNames().forEach(name ->
+                subscribers.computeIfAbsent(name, key -> ConcurrentHashMap.newKeySet()).add(subscriber));
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(() -> unregister(subscriber));
+        emitter.onError(e -> unregister(subscriber));
+        return Optional.of(subscriber);
+    }
+
+    private void unregister(Subscriber subscriber) {
+        if (!subscriber.registered.compareAndSet(true, false))
+            return;
+        subscriberTotal.decrementAndGet();
+        subscriber.getNames().forEach(name -> subscribers.computeIfPresent(name, (key, pairSubscribers) -> {
+            pairSubscribers.remove(subscriber);
+            return pairSubscribers.isEmpty() ? null : pairSubscribers;
+        }));
+    }
+
+    /**
+     * One subscription with its buffer of updates not sent yet.
+     */
+    class Subscriber {
+        private final SseEmitter emitter;
+        private final List<String> names;
+        private final Deque<PriceUpdate> buffer = new ArrayDeque<>();
+        private final AtomicBoolean registered = new AtomicBoolean(true);
+        private boolean draining;
+        private long dropped;
+
+        Subscriber(SseEmitter emitter, List<String> names) {
+            this.emitter = emitter;
+            this.names = names;
+        }
+
+        SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        List<String> getNames() {
+            return names;
+        }
+
+        synchronized long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * Buffers the update and makes sure the buffer is being drained.
+         *
+         * @param update update to send.
+         */
+        void offer(PriceUpdate update) {
+            synchronized (this) {
+                if (buffer.size() >= properties.getBufferSize()) {
+                    if (properties.getOverflow() == Overflow.DISCONNECT) {
+                        log.warn("Disconnecting subscriber of {} that does not keep up", names);
+                        buffer.clear();
+                        unregister(this);
+                        emitter.complete();
+                        return;
+                    }
+                    buffer.pollFirst();
+                    dropped++;
+                }
+                buffer.addLast(update);
+                if (draining)
+                    return;
+                draining = true;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    draining = false;
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                PriceUpdate update;
+                synchronized (this) {
+                    update = buffer.pollFirst();
+                    if (update == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(SseEmitter.event().name("price").data(update, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    unregister(this);
+                    emitter.completeWithError(e);
+                    synchronized (this) {
+                        buffer.clear();
+                        draining = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published after new prices of a currency pair have been stored
+ * and added to its summary.
+ *
+ * @see CurrencyService#appendPrices(com.cryptocurrency.demo.entities.CryptoCurrency)
+ */
+@Value
+public class PricesAppendedEvent {
+    String currName1;
+    String currName2;
+    /**
+     * Appended prices in ascending <i>tmsp</i> order, never empty.
+     * Includes prices stored by an earlier failed append but not summarized until now.
+     */
+    List<Price> prices;
+    /**
+     * Summary of the pair including the appended prices.
+     */
+    PriceSummary summary;
+}
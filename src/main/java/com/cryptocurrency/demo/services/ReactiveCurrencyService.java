@@ -0,0 +1,30 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CandleInterval;
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.PairSummary;
+import com.cryptocurrency.demo.entities.Price;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of the read side of {@link CurrencyService}.
+ * <p>An empty {@link Mono} stands for {@link java.util.Optional#empty()}, i.e. an unknown currency.
+ */
+public interface ReactiveCurrencyService {
+    Flux<CryptoCurrency> streamAllSummaries();
+    Flux<PairSummary> getSummariesByCurrName1(List<String> currNames1);
+    Mono<Price> getMaxPriceByCurrName1(String currName1);
+    Mono<Price> getMaxPriceByCurrName1(String currName1, long from, long to);
+    Mono<Price> getMinPriceByCurrName1(String currName1);
+    Mono<Price> getMinPriceByCurrName1(String currName1, long from, long to);
+    Mono<List<Price>> getPricesByCurrName1Sorted(String currName1, int page, int size);
+    Mono<List<Price>> getPricesByCurrName1Sorted(String currName1, long from, long to, int page, int size);
+    Mono<List<Price>> getPricesByCurrName1SortedAfter(String currName1, Price after, int size);
+    Mono<List<Price>> getPricesByCurrName1SortedAfter(String currName1, long from, long to, Price after, int size);
+    Mono<List<Candle>> getCandles(String currName1, CandleInterval interval, long from, long to, int limit);
+    Mono<Boolean> checkCurrency(String currName1);
+}
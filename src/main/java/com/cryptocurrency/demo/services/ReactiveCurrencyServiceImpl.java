@@ -0,0 +1,338 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CandleInterval;
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.PairSummary;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import com.cryptocurrency.demo.exceptions.PriceException;
+import com.cryptocurrency.demo.repositories.ReactiveCandleRepository;
+import com.cryptocurrency.demo.repositories.ReactiveCurrencyRepository;
+import com.cryptocurrency.demo.repositories.ReactivePriceRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Reads currencies and their prices with the reactive MongoDB driver.
+ * <p>Queries are the same as in {@link CurrencyServiceImpl}, but no thread
+ * waits for their results. Lookups are not cached and prices are always
+ * read from MongoDB, whatever <b>storage.mode</b> is.
+ * <p>Active if <b>api.mode</b> is <b>reactive</b>, like the reactive repositories it reads with.
+ *
+ * @see CurrencyServiceImpl
+ * @see com.cryptocurrency.demo.context.ReactiveConfig
+ */
+@RequiredArgsConstructor
+@Service
+@ConditionalOnProperty(prefix = "api", name = "mode", havingValue = "reactive")
+public class ReactiveCurrencyServiceImpl implements ReactiveCurrencyService {
+
+    @Autowired
+    private final ReactiveCurrencyRepository currencyRepository;
+    @Autowired
+    private final ReactivePriceRepository priceRepository;
+    @Autowired
+    private final ReactiveCandleRepository candleRepository;
+
+    /**
+     * Streams all currencies with min and max prices of their summaries.
+     * <p>Currencies are emitted as the database cursor returns them.
+     *
+     * @return {@link Flux} of all {@link CryptoCurrency} with min and max prices only.
+     * @see ReactiveCurrencyRepository#streamAllSummaries()
+     */
+    @Override
+    public Flux<CryptoCurrency> streamAllSummaries() {
+        return currencyRepository.streamAllSummaries();
+    }
+
+    /**
+     * Returns {@link PairSummary} of each currency with one of the given names,
+     * read with a single query.
+     * <p>Summaries follow the order of <i>currNames1</i>,
+     * names of missing currencies are skipped.
+     *
+     * @param currNames1 names of the cryptocurrencies.
+     * @return {@link Flux} of summaries of the found cryptocurrencies.
+     * @see ReactiveCurrencyRepository#findSummariesByCurrName1In(java.util.Collection)
+     */
+    @Override
+    public Flux<PairSummary> getSummariesByCurrName1(List<String> currNames1) {
+        if (currNames1.isEmpty())
+            return Flux.empty();
+        return currencyRepository.findSummariesByCurrName1In(currNames1)
+                .map(PairSummary::of)
+                .sort(Comparator.comparingInt(summary -> currNames1.indexOf(summary.getCurrName1())));
+    }
+
+    /**
+     * Returns max {@link Price} of currency with the given name.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @return max {@link Price} of the cryptocurrency with name <i>currName1</i>,
+     * empty if there is no such currency, or failed with {@link PriceException}
+     * if the currency has no prices.
+     * @see ReactiveCurrencyRepository#findMaxByCurrName1(String)
+     */
+    @Override
+    public Mono<Price> getMaxPriceByCurrName1(String currName1) {
+        return fromSummary(currencyRepository.findMaxByCurrName1(currName1), PriceSummary::getMax,
+                String.format("Couldn't find max price for currency \"%s\".", currName1));
+    }
+
+    /**
+     * Returns max {@link Price} of currency with the given name
+     * among prices with timestamp from <i>from</i> to <i>to</i>, both inclusive.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param from start of the range, in units of {@link Price#getTmsp()}.
+     * @param to end of the range, in units of {@link Price#getTmsp()}.
+     * @return max {@link Price} of the cryptocurrency with name <i>currName1</i> in the range,
+     * empty if there is no such currency, or failed with {@link PriceException}
+     * if the currency has no prices in the range.
+     * @see ReactivePriceRepository#findByCurrName1InRange(String, long, long, Pageable)
+     */
+    @Override
+    public Mono<Price> getMaxPriceByCurrName1(String currName1, long from, long to) {
+        return firstInRange(currName1, from, to, Sort.by(Sort.Order.desc("price"), Sort.Order.asc("tmsp")), "max");
+    }
+
+    /**
+     * Returns min {@link Price} of currency with the given name.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @return min {@link Price} of the cryptocurrency with name <i>currName1</i>,
+     * empty if there is no such currency, or failed with {@link PriceException}
+     * if the currency has no prices.
+     * @see ReactiveCurrencyRepository#findMinByCurrName1(String)
+     */
+    @Override
+    public Mono<Price> getMinPriceByCurrName1(String currName1) {
+        return fromSummary(currencyRepository.findMinByCurrName1(currName1), PriceSummary::getMin,
+                String.format("Couldn't find min price for currency \"%s\".", currName1));
+    }
+
+    /**
+     * Returns min {@link Price} of currency with the given name
+     * among prices with timestamp from <i>from</i> to <i>to</i>, both inclusive.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param from start of the range, in units of {@link Price#getTmsp()}.
+     * @param to end of the range, in units of {@link Price#getTmsp()}.
+     * @return min {@link Price} of the cryptocurrency with name <i>currName1</i> in the range,
+     * empty if there is no such currency, or failed with {@link PriceException}
+     * if the currency has no prices in the range.
+     * @see ReactivePriceRepository#findByCurrName1InRange(String, long, long, Pageable)
+     */
+    @Override
+    public Mono<Price> getMinPriceByCurrName1(String currName1, long from, long to) {
+        return firstInRange(currName1, from, to, Sort.by("price", "tmsp"), "min");
+    }
+
+    /**
+     * Returns one page of {@link Price} of currency with
+     * the given name sorted from low price to high price.
+     * <p>The number of prices is taken from the currency {@link PriceSummary}.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param page page number, must not be negative.<br>
+     *             Changed to the last page if <b>{@code page>{number of possible pages}}</b>.
+     * @param size page size, must be positive.
+     * @return sorted page of prices of cryptocurrency with name <i>currName1</i>,
+     * or empty if there is no such currency.
+     * @see ReactiveCurrencyRepository#findCountByCurrName1(String)
+     * @see ReactivePriceRepository#findByCurrName1OrderByPriceAscTmspAsc(String, Pageable)
+     */
+    @Override
+    public Mono<List<Price>> getPricesByCurrName1Sorted(String currName1, int page, int size) {
+        return currencyRepository.findCountByCurrName1(currName1)
+                .map(currency -> Optional.ofNullable(currency.getSummary()).map(PriceSummary::getCount).orElse(0L))
+                .flatMap(count -> priceRepository.findByCurrName1OrderByPriceAscTmspAsc(
+                        currName1, PageRequest.of(lastPageOr(page, count, size), size)).collectList());
+    }
+
+    /**
+     * Returns one page of {@link Price} of currency with the given name
+     * and timestamp from <i>from</i> to <i>to</i>, both inclusive,
+     * sorted from low price to high price.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param from start of the range, in units of {@link Price#getTmsp()}.
+     * @param to end of the range, in units of {@link Price#getTmsp()}.
+     * @param page page number, must not be negative.<br>
+     *             Changed to the last page if <b>{@code page>{number of possible pages}}</b>.
+     * @param size page size, must be positive.
+     * @return sorted page of prices of cryptocurrency with name <i>currName1</i> in the range,
+     * or empty if there is no such currency.
+     * @see ReactivePriceRepository#countByCurrName1InRange(String, long, long)
+     * @see ReactivePriceRepository#findByCurrName1InRange(String, long, long, Pageable)
+     */
+    @Override
+    public Mono<List<Price>> getPricesByCurrName1Sorted(String currName1, long from, long to, int page, int size) {
+        return priceRepository.countByCurrName1InRange(currName1, from, to)
+                .flatMap(count -> priceRepository.findByCurrName1InRange(currName1, from, to,
+                        PageRequest.of(lastPageOr(page, count, size), size, Sort.by("price", "tmsp")))
+                        .collectList())
+                .flatMap(prices -> orUnknown(currName1, prices));
+    }
+
+    /**
+     * Returns up to <i>size</i> {@link Price} of currency with the given name
+     * that follow <i>after</i> in the low to high price order.
+     * <p>The currency is looked up only if no price was found.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param after last price of the previous page.
+     * @param size page size, must be positive.
+     * @return sorted page of prices of cryptocurrency with name <i>currName1</i>,
+     * or empty if there is no such currency.
+     * @see ReactivePriceRepository#findByCurrName1SortedAfter(String, double, long, Pageable)
+     */
+    @Override
+    public Mono<List<Price>> getPricesByCurrName1SortedAfter(String currName1, Price after, int size) {
+        return priceRepository.findByCurrName1SortedAfter(
+                        currName1, after.getPrice(), after.getTmsp(), PageRequest.of(0, size))
+                .collectList()
+                .flatMap(prices -> orUnknown(currName1, prices));
+    }
+
+    /**
+     * Returns up to <i>size</i> {@link Price} of currency with the given name
+     * and timestamp from <i>from</i> to <i>to</i>, both inclusive,
+     * that follow <i>after</i> in the low to high price order.
+     * <p>The currency is looked up only if no price was found.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param from start of the range, in units of {@link Price#getTmsp()}.
+     * @param to end of the range, in units of {@link Price#getTmsp()}.
+     * @param after last price of the previous page.
+     * @param size page size, must be positive.
+     * @return sorted page of prices of cryptocurrency with name <i>currName1</i> in the range,
+     * or empty if there is no such currency.
+     * @see ReactivePriceRepository#findByCurrName1InRangeSortedAfter(String, double, long, long, long, Pageable)
+     */
+    @Override
+    public Mono<List<Price>> getPricesByCurrName1SortedAfter(String currName1, long from, long to,
+                                                             Price after, int size) {
+        return priceRepository.findByCurrName1InRangeSortedAfter(
+                        currName1, after.getPrice(), after.getTmsp(), from, to, PageRequest.of(0, size))
+                .collectList()
+                .flatMap(prices -> orUnknown(currName1, prices));
+    }
+
+    /**
+     * Returns up to <i>limit</i> {@link Candle} of currency with the given name
+     * starting from <i>from</i> to <i>to</i>, both inclusive, ordered by start.
+     * <p>The candle containing <i>from</i> is included.
+     * The currency is looked up only if no candle was found.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param interval candle interval.
+     * @param from start of the range, in units of {@link Price#getTmsp()}.
+     * @param to end of the range, in units of {@link Price#getTmsp()}.
+     * @param limit max number of candles, must be positive.
+     * @return candles of cryptocurrency with name <i>currName1</i> in the range,
+     * or empty if there is no such currency.
+     * @see ReactiveCandleRepository#findByCurrName1InRange(String, String, long, long, Pageable)
+     */
+    @Override
+    public Mono<List<Candle>> getCandles(String currName1, CandleInterval interval, long from, long to, int limit) {
+        long start = from == Long.MIN_VALUE ? from : interval.startOf(from);
+        return candleRepository.findByCurrName1InRange(
+                        currName1, interval.getName(), start, to, PageRequest.of(0, limit))
+                .collectList()
+                .flatMap(candles -> orUnknown(currName1, candles));
+    }
+
+    /**
+     * Checks if currency with the given name exists in the database.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @return <b>true</b> if cryptocurrency with name <i>currName1</i> exists,
+     * <b>false</b> otherwise.
+     * @see ReactiveCurrencyRepository#existsByCurrName1(String)
+     */
+    @Override
+    public Mono<Boolean> checkCurrency(String currName1) {
+        return currencyRepository.existsByCurrName1(currName1);
+    }
+
+    /**
+     * Returns the first {@link Price} of currency with the given name
+     * and timestamp in the range in the given order.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param from start of the range.
+     * @param to end of the range.
+     * @param sort order of prices.
+     * @param kind <b>min</b> or <b>max</b>, used in the exception message.
+     * @return the first {@link Price}, empty if there is no such currency,
+     * or failed with {@link PriceException} if the currency has no prices in the range.
+     */
+    private Mono<Price> firstInRange(String currName1, long from, long to, Sort sort, String kind) {
+        return priceRepository.findByCurrName1InRange(currName1, from, to, PageRequest.of(0, 1, sort))
+                .next()
+                .switchIfEmpty(currencyRepository.existsByCurrName1(currName1)
+                        .filter(Boolean::booleanValue)
+                        .flatMap(exists -> Mono.error(new PriceException(String.format(
+                                "Couldn't find %s price for currency \"%s\" from %d to %d.",
+                                kind, currName1, from, to)))));
+    }
+
+    /**
+     * Takes a price out of the summary of the found currency.
+     *
+     * @param currency currency with its projected {@link PriceSummary}, empty if not found.
+     * @param price price of the summary to return.
+     * @param message message of the exception if the summary has no such price.
+     * @return the price, empty if the currency was not found,
+     * or failed with {@link PriceException} if the currency has no prices.
+     */
+    private Mono<Price> fromSummary(Mono<CryptoCurrency> currency, Function<PriceSummary, Price> price,
+                                    String message) {
+        return currency.flatMap(found -> Mono.justOrEmpty(Optional.ofNullable(found.getSummary()).map(price))
+                .switchIfEmpty(Mono.error(() -> new PriceException(message))));
+    }
+
+    /**
+     * Returns the found elements, or nothing if there are none and the currency does not exist.
+     *
+     * @param currName1 name of the cryptocurrency.
+     * @param found elements found for the currency.
+     * @param <T> type of the elements.
+     * @return <i>found</i>, or empty if the currency does not exist.
+     */
+    private <T> Mono<List<T>> orUnknown(String currName1, List<T> found) {
+        if (!found.isEmpty())
+            return Mono.just(found);
+        return currencyRepository.existsByCurrName1(currName1)
+                .filter(Boolean::booleanValue)
+                .map(exists -> found);
+    }
+
+    /**
+     * Clamps the page number to the last page of <i>count</i> elements.
+     *
+     * @param page requested page number.
+     * @param count number of elements.
+     * @param size page size, must be positive.
+     * @return <i>page</i>, or the last page if it is beyond it.
+     */
+    private static int lastPageOr(int page, long count, int size) {
+        long lastPage = count == 0 ? 0 : (count - 1) / size;
+        return (int) Math.min(page, lastPage);
+    }
+}
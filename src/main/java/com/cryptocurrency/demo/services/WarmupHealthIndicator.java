@@ -0,0 +1,43 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.repositories.CurrencyRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Reports the state of the initial ingestion as the <b>warmup</b> health component.
+ * <p>The application is ready to serve as soon as either the database already holds
+ * currencies from a previous run or every configured pair has been refreshed once.
+ * Until then it is reported as {@link Status#OUT_OF_SERVICE}, which takes it out of
+ * the readiness group.
+ *
+ * @see IngestionScheduler#getWarmingUp()
+ */
+@RequiredArgsConstructor
+@Component
+public class WarmupHealthIndicator extends AbstractHealthIndicator {
+
+    private final IngestionScheduler scheduler;
+    private final CurrencyRepository currencyRepository;
+
+    private volatile boolean dataAvailable;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        Set<String> warmingUp = scheduler.getWarmingUp();
+        if (warmingUp.isEmpty()) {
+            builder.up().withDetail("state", "READY");
+            return;
+        }
+        if (!dataAvailable)
+            dataAvailable = currencyRepository.count() > 0;
+        builder.status(dataAvailable ? Status.UP : Status.OUT_OF_SERVICE)
+                .withDetail("state", "WARMING")
+                .withDetail("pending", warmingUp);
+    }
+}
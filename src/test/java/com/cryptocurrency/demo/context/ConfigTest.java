@@ -0,0 +1,46 @@
+package com.cryptocurrency.demo.context;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigTest {
+
+    Config config = new Config();
+    IngestionProperties properties = new IngestionProperties();
+    MockEnvironment environment = new MockEnvironment();
+    ExecutorService executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void ingestionExecutor_virtualThreadsEnabled_RunsOnVirtualThread() throws Exception {
+//        GIVEN
+        environment.setProperty("spring.threads.virtual.enabled", "true");
+        executor = config.ingestionExecutor(properties, environment);
+//        WHEN
+        Thread actual = executor.submit(Thread::currentThread).get();
+//        THEN
+        assertTrue(actual.isVirtual());
+        assertTrue(actual.getName().startsWith("ingestion-"));
+    }
+
+    @Test
+    void ingestionExecutor_virtualThreadsDisabled_RunsOnPlatformThread() throws Exception {
+//        GIVEN
+        environment.setProperty("spring.threads.virtual.enabled", "false");
+        executor = config.ingestionExecutor(properties, environment);
+//        WHEN
+        Thread actual = executor.submit(Thread::currentThread).get();
+//        THEN
+        assertFalse(actual.isVirtual());
+        assertTrue(actual.getName().startsWith("ingestion-"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.cryptocurrency.demo.context;
+
+import com.cryptocurrency.demo.controllers.CryptoController;
+import com.cryptocurrency.demo.controllers.ReactiveCryptoController;
+import com.cryptocurrency.demo.repositories.ReactiveCurrencyRepository;
+import com.cryptocurrency.demo.services.ReactiveCurrencyService;
+import com.mongodb.reactivestreams.client.MongoClient;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@ImportAutoConfiguration({MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
+@ContextConfiguration(classes = {Config.class})
+class ReactiveConfigTest {
+
+    @Nested
+    class BlockingMode {
+
+        @Autowired
+        ApplicationContext context;
+
+        @Test
+        void context_blockingMode_NoReactiveClientOrRepositories() {
+//        GIVEN
+//        WHEN
+//        THEN
+            assertTrue(context.getBeansOfType(MongoClient.class).isEmpty());
+            assertTrue(context.getBeansOfType(ReactiveCurrencyRepository.class).isEmpty());
+            assertTrue(context.getBeansOfType(ReactiveCurrencyService.class).isEmpty());
+            assertEquals(1, context.getBeansOfType(CryptoController.class).size());
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "api.mode=reactive")
+    class ReactiveMode {
+
+        @Autowired
+        ApplicationContext context;
+
+        @Test
+        void context_reactiveMode_ReactiveClientAndRepositories() {
+//        GIVEN
+//        WHEN
+//        THEN
+            assertEquals(1, context.getBeansOfType(MongoClient.class).size());
+            assertEquals(1, context.getBeansOfType(ReactiveCurrencyRepository.class).size());
+            assertEquals(1, context.getBeansOfType(ReactiveCryptoController.class).size());
+            assertTrue(context.getBeansOfType(CryptoController.class).isEmpty());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.cryptocurrency.demo.controllers;
+
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import com.cryptocurrency.demo.services.DataVersions;
+import com.cryptocurrency.demo.services.PricesAppendedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionalGetInterceptorTest {
+
+    String currencyName1 = "TEST1";
+    String currencyName2 = "TEST2";
+    List<Price> prices = List.of(new Price(1L, 1.0));
+    PricesAppendedEvent event = new PricesAppendedEvent(currencyName1, "USD", prices, PriceSummary.of(prices));
+    DataVersions dataVersions = new DataVersions();
+    ConditionalGetInterceptor interceptor = new ConditionalGetInterceptor(dataVersions);
+
+    @Test
+    void preHandle_noConditions_HeadersSet() {
+//        GIVEN
+        MockHttpServletResponse response = new MockHttpServletResponse();
+//        WHEN
+        boolean actual = interceptor.preHandle(request("name", currencyName1, null), response, null);
+//        THEN
+        assertTrue(actual);
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void preHandle_sameETag_NotModified() {
+//        GIVEN
+        String eTag = eTagOf("name", currencyName1);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+//        WHEN
+        boolean actual = interceptor.preHandle(request("name", currencyName1, eTag), response, null);
+//        THEN
+        assertFalse(actual);
+        assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    void preHandle_pricesAppended_Modified() {
+//        GIVEN
+        String eTag = eTagOf("name", currencyName1);
+        dataVersions.onPricesAppended(event);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+//        WHEN
+        boolean actual = interceptor.preHandle(request("name", currencyName1, eTag), response, null);
+//        THEN
+        assertTrue(actual);
+        assertNotEquals(eTag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void preHandle_otherCurrencyAppended_NotModified() {
+//        GIVEN
+        String eTag = eTagOf("name", currencyName2);
+        dataVersions.onPricesAppended(event);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+//        WHEN
+        boolean actual = interceptor.preHandle(request("name", currencyName2, eTag), response, null);
+//        THEN
+        assertFalse(actual);
+    }
+
+    @Test
+    void preHandle_oneOfNamesAppended_Modified() {
+//        GIVEN
+        String names = currencyName1 + "," + currencyName2;
+        String eTag = eTagOf("names", names);
+        dataVersions.onPricesAppended(event);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+//        WHEN
+        boolean actual = interceptor.preHandle(request("names", names, eTag), response, null);
+//        THEN
+        assertTrue(actual);
+    }
+
+    @Test
+    void preHandle_appendedInSameSecond_ModifiedSince() {
+//        GIVEN
+        dataVersions.onPricesAppended(event);
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        interceptor.preHandle(request("name", currencyName1, null), first, null);
+        dataVersions.onPricesAppended(event);
+        MockHttpServletRequest request = request("name", currencyName1, null);
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, first.getHeader(HttpHeaders.LAST_MODIFIED));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+//        WHEN
+        boolean actual = interceptor.preHandle(request, response, null);
+//        THEN
+        assertTrue(actual);
+        assertNotEquals(first.getHeader(HttpHeaders.LAST_MODIFIED), response.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    private String eTagOf(String parameter, String value) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request(parameter, value, null), response, null);
+        return response.getHeader(HttpHeaders.ETAG);
+    }
+
+    private static MockHttpServletRequest request(String parameter, String value, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cryptocurrencies");
+        request.addParameter(parameter, value);
+        if (ifNoneMatch != null)
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return request;
+    }
+}
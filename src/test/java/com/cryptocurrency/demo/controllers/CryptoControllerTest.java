@@ -1,47 +1,57 @@
 package com.cryptocurrency.demo.controllers;
 
 import com.cryptocurrency.demo.context.Config;
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CandleInterval;
 import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.PairSummary;
 import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import com.cryptocurrency.demo.exceptions.PriceException;
 import com.cryptocurrency.demo.services.CurrencyService;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
-import org.junit.runner.RunWith;
 import org.mockito.Mockito;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ContextConfiguration;
-import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@RunWith(SpringRunner.class)
 @DataMongoTest
+@ImportAutoConfiguration({MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
 @ContextConfiguration(classes = {Config.class})
 class CryptoControllerTest {
 
     String currencyName1 = "TEST1";
     String currencyName2 = "TEST2";
     String usd = "USD";
-    String minPriceStr = "1.0";
-    String medPriceStr = "2.0";
-    String maxPriceStr = "3.0";
+    double minPriceValue = 1.0;
+    double medPriceValue = 2.0;
+    double maxPriceValue = 3.0;
     long minTimestamp = 1L;
     long medTimestamp = 2L;
     long maxTimestamp = 3L;
-    Price minPrice = new Price(minTimestamp, minPriceStr);
-    Price medPrice = new Price(medTimestamp, medPriceStr);
-    Price maxPrice = new Price(maxTimestamp, maxPriceStr);
+    Price minPrice = new Price(minTimestamp, minPriceValue);
+    Price medPrice = new Price(medTimestamp, medPriceValue);
+    Price maxPrice = new Price(maxTimestamp, maxPriceValue);
     List<Price> priceList1 = List.of(minPrice, medPrice, maxPrice);
     List<Price> priceList2 = List.of(medPrice);
     List<CryptoCurrency> currencyList = List.of(
@@ -61,10 +71,9 @@ class CryptoControllerTest {
     @Test
     void getMinPrice_comparingWithRightPrice_Equals() {
 //        GIVEN
-        Mockito.doReturn(minPrice).when(currencyService).getMinPriceByCurrName1(currencyName1);
-        Mockito.doReturn(true).when(currencyService).checkCurrency(currencyName1);
+        Mockito.doReturn(Optional.of(minPrice)).when(currencyService).getMinPriceByCurrName1(currencyName1);
 //        WHEN
-        ResponseEntity<Price> actual = cryptoController.getMinPrice(currencyName1);
+        ResponseEntity<Price> actual = cryptoController.getMinPrice(currencyName1, null, null);
 //        THEN
         assertEquals(minPrice, actual.getBody());
         assertEquals(HttpStatus.OK, actual.getStatusCode());
@@ -73,10 +82,9 @@ class CryptoControllerTest {
     @Test
     void getMinPrice_comparingWithWrongPrice_NotEquals() {
 //        GIVEN
-        Mockito.doReturn(medPrice).when(currencyService).getMinPriceByCurrName1(currencyName2);
-        Mockito.doReturn(true).when(currencyService).checkCurrency(currencyName2);
+        Mockito.doReturn(Optional.of(medPrice)).when(currencyService).getMinPriceByCurrName1(currencyName2);
 //        WHEN
-        ResponseEntity<Price> actual = cryptoController.getMinPrice(currencyName2);
+        ResponseEntity<Price> actual = cryptoController.getMinPrice(currencyName2, null, null);
 //        THEN
         assertNotEquals(minPrice, actual.getBody());
         assertEquals(HttpStatus.OK, actual.getStatusCode());
@@ -85,20 +93,42 @@ class CryptoControllerTest {
     @Test
     void getMinPrice_invalidCurrency_Throws() {
 //        GIVEN
-        Mockito.doReturn(false).when(currencyService).checkCurrency(currencyName2);
+        Mockito.doReturn(Optional.empty()).when(currencyService).getMinPriceByCurrName1(currencyName2);
 //        WHEN
-        Executable supplier = () -> cryptoController.getMinPrice(currencyName2);
+        Executable supplier = () -> cryptoController.getMinPrice(currencyName2, null, null);
 //        THEN
         assertThrows(ResponseStatusException.class, supplier);
     }
 
+    @Test
+    void getMinPrice_currencyWithoutPrices_NotFound() {
+//        GIVEN
+        Mockito.doThrow(new PriceException("No prices")).when(currencyService).getMinPriceByCurrName1(currencyName1);
+//        WHEN
+        Executable supplier = () -> cryptoController.getMinPrice(currencyName1, null, null);
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.NOT_FOUND, actual.getStatusCode());
+    }
+
+    @Test
+    void getMinPrice_fromOnly_Equals() {
+//        GIVEN
+        Mockito.doReturn(Optional.of(medPrice)).when(currencyService)
+                .getMinPriceByCurrName1(currencyName1, medTimestamp, Long.MAX_VALUE);
+//        WHEN
+        ResponseEntity<Price> actual = cryptoController.getMinPrice(currencyName1, medTimestamp, null);
+//        THEN
+        assertEquals(medPrice, actual.getBody());
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+    }
+
     @Test
     void getMaxPrice_comparingWithRightPrice_Equals() {
 //        GIVEN
-        Mockito.doReturn(maxPrice).when(currencyService).getMaxPriceByCurrName1(currencyName1);
-        Mockito.doReturn(true).when(currencyService).checkCurrency(currencyName1);
+        Mockito.doReturn(Optional.of(maxPrice)).when(currencyService).getMaxPriceByCurrName1(currencyName1);
 //        WHEN
-        ResponseEntity<Price> actual = cryptoController.getMaxPrice(currencyName1);
+        ResponseEntity<Price> actual = cryptoController.getMaxPrice(currencyName1, null, null);
 //        THEN
         assertEquals(maxPrice, actual.getBody());
         assertEquals(HttpStatus.OK, actual.getStatusCode());
@@ -107,10 +137,9 @@ class CryptoControllerTest {
     @Test
     void getMaxPrice_comparingWithWrongPrice_NotEquals() {
 //        GIVEN
-        Mockito.doReturn(medPrice).when(currencyService).getMaxPriceByCurrName1(currencyName2);
-        Mockito.doReturn(true).when(currencyService).checkCurrency(currencyName2);
+        Mockito.doReturn(Optional.of(medPrice)).when(currencyService).getMaxPriceByCurrName1(currencyName2);
 //        WHEN
-        ResponseEntity<Price> actual = cryptoController.getMaxPrice(currencyName2);
+        ResponseEntity<Price> actual = cryptoController.getMaxPrice(currencyName2, null, null);
 //        THEN
         assertNotEquals(maxPrice, actual.getBody());
         assertEquals(HttpStatus.OK, actual.getStatusCode());
@@ -119,126 +148,226 @@ class CryptoControllerTest {
     @Test
     void getMaxPrice_invalidCurrency_Throws() {
 //        GIVEN
-        Mockito.doReturn(false).when(currencyService).checkCurrency(currencyName2);
+        Mockito.doReturn(Optional.empty()).when(currencyService).getMaxPriceByCurrName1(currencyName2);
 //        WHEN
-        Executable supplier = () -> cryptoController.getMaxPrice(currencyName2);
+        Executable supplier = () -> cryptoController.getMaxPrice(currencyName2, null, null);
 //        THEN
         assertThrows(ResponseStatusException.class, supplier);
     }
 
     @Test
-    void getPages_page0Size3FromListOfSize3_Equals() {
+    void getPages_page0Size3_Equals() {
 //        GIVEN
-        Mockito.doReturn(priceList1).when(currencyService).getPricesByCurrName1Sorted(currencyName1);
-        Mockito.doReturn(true).when(currencyService).checkCurrency(currencyName1);
+        Mockito.doReturn(Optional.of(priceList1)).when(currencyService).getPricesByCurrName1Sorted(currencyName1, 0, 3);
 //        WHEN
-        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, 0, 3);
+        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, 0, 3, null, null, null);
 //        THEN
         assertEquals(priceList1, actual.getBody());
         assertEquals(HttpStatus.OK, actual.getStatusCode());
     }
 
     @Test
-    void getPages_page1Size3FromListOfSize3_Equals() {
+    void getPages_pageMinus1Size3_Equals() {
 //        GIVEN
-        Mockito.doReturn(priceList1).when(currencyService).getPricesByCurrName1Sorted(currencyName1);
-        Mockito.doReturn(true).when(currencyService).checkCurrency(currencyName1);
+        Mockito.doReturn(Optional.of(priceList1)).when(currencyService).getPricesByCurrName1Sorted(currencyName1, 0, 3);
 //        WHEN
-        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, 1, 3);
+        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, -1, 3, null, null, null);
 //        THEN
         assertEquals(priceList1, actual.getBody());
         assertEquals(HttpStatus.OK, actual.getStatusCode());
     }
 
     @Test
-    void getPages_pageMinus1Size3FromListOfSize3_Equals() {
+    void getPages_page1Size2_Equals() {
 //        GIVEN
-        Mockito.doReturn(priceList1).when(currencyService).getPricesByCurrName1Sorted(currencyName1);
-        Mockito.doReturn(true).when(currencyService).checkCurrency(currencyName1);
+        Mockito.doReturn(Optional.of(List.of(maxPrice))).when(currencyService).getPricesByCurrName1Sorted(currencyName1, 1, 2);
 //        WHEN
-        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, -1, 3);
+        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, 1, 2, null, null, null);
 //        THEN
-        assertEquals(priceList1, actual.getBody());
+        assertEquals(List.of(maxPrice), actual.getBody());
         assertEquals(HttpStatus.OK, actual.getStatusCode());
     }
 
     @Test
-    void getPages_page0Size2FromListOfSize3_Equals() {
+    void getPages_page0SizeMinus1_Equals() {
 //        GIVEN
-        Mockito.doReturn(priceList1).when(currencyService).getPricesByCurrName1Sorted(currencyName1);
-        Mockito.doReturn(true).when(currencyService).checkCurrency(currencyName1);
+        Mockito.doReturn(Optional.of(priceList1)).when(currencyService).getPricesByCurrName1Sorted(currencyName1, 0, 10);
 //        WHEN
-        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, 0, 2);
+        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, 0, -1, null, null, null);
 //        THEN
-        assertEquals(List.of(minPrice, medPrice), actual.getBody());
+        assertEquals(priceList1, actual.getBody());
         assertEquals(HttpStatus.OK, actual.getStatusCode());
     }
 
     @Test
-    void getPages_page1Size2FromListOfSize3_Equals() {
+    void getPages_afterMinPriceSize2_Equals() {
 //        GIVEN
-        Mockito.doReturn(priceList1).when(currencyService).getPricesByCurrName1Sorted(currencyName1);
-        Mockito.doReturn(true).when(currencyService).checkCurrency(currencyName1);
+        Mockito.doReturn(Optional.of(List.of(medPrice, maxPrice))).when(currencyService)
+                .getPricesByCurrName1SortedAfter(currencyName1, minPrice, 2);
 //        WHEN
-        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, 1, 2);
+        ResponseEntity<List<Price>> actual = cryptoController.getPages(
+                currencyName1, 0, 2, minPriceValue + "," + minTimestamp, null, null);
 //        THEN
-        assertEquals(List.of(maxPrice), actual.getBody());
+        assertEquals(List.of(medPrice, maxPrice), actual.getBody());
         assertEquals(HttpStatus.OK, actual.getStatusCode());
     }
 
     @Test
-    void getPages_page2Size2FromListOfSize3_Equals() {
+    void getPages_malformedAfter_Throws() {
 //        GIVEN
-        Mockito.doReturn(priceList1).when(currencyService).getPricesByCurrName1Sorted(currencyName1);
-        Mockito.doReturn(true).when(currencyService).checkCurrency(currencyName1);
 //        WHEN
-        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, 2, 2);
+        Executable supplier = () -> cryptoController.getPages(
+                currencyName1, 0, 2, String.valueOf(minPriceValue), null, null);
 //        THEN
-        assertEquals(List.of(maxPrice), actual.getBody());
-        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertThrows(ResponseStatusException.class, supplier);
     }
 
     @Test
-    void getPages_page0SizeMinus1FromListOfSize3_Equals() {
+    void getPages_fromTo_Equals() {
 //        GIVEN
-        Mockito.doReturn(priceList1).when(currencyService).getPricesByCurrName1Sorted(currencyName1);
-        Mockito.doReturn(true).when(currencyService).checkCurrency(currencyName1);
+        Mockito.doReturn(Optional.of(List.of(minPrice, medPrice))).when(currencyService)
+                .getPricesByCurrName1Sorted(currencyName1, minTimestamp, medTimestamp, 0, 10);
 //        WHEN
-        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, 0, -1);
+        ResponseEntity<List<Price>> actual = cryptoController.getPages(
+                currencyName1, 0, 10, null, minTimestamp, medTimestamp);
 //        THEN
-        assertEquals(priceList1, actual.getBody());
+        assertEquals(List.of(minPrice, medPrice), actual.getBody());
         assertEquals(HttpStatus.OK, actual.getStatusCode());
     }
 
+    @Test
+    void getPages_fromAfterTo_BadRequest() {
+//        GIVEN
+//        WHEN
+        Executable supplier = () -> cryptoController.getPages(
+                currencyName1, 0, 10, null, maxTimestamp, minTimestamp);
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+        Mockito.verifyNoInteractions(currencyService);
+    }
+
     @Test
     void getPages_invalidCurrency_Throws() {
 //        GIVEN
-        Mockito.doReturn(priceList1).when(currencyService).getPricesByCurrName1Sorted(currencyName1);
-        Mockito.doReturn(false).when(currencyService).checkCurrency(currencyName1);
+        Mockito.doReturn(Optional.empty()).when(currencyService).getPricesByCurrName1Sorted(currencyName1, 0, 1);
 //        WHEN
-        Executable supplier = () -> cryptoController.getPages(currencyName1, 0, 1);
+        Executable supplier = () -> cryptoController.getPages(currencyName1, 0, 1, null, null, null);
 //        THEN
         assertThrows(ResponseStatusException.class, supplier);
     }
 
+    @Test
+    void getPages_afterInvalidCurrency_BadRequest() {
+//        GIVEN
+        Mockito.doReturn(Optional.empty()).when(currencyService)
+                .getPricesByCurrName1SortedAfter(currencyName1, minPrice, 2);
+//        WHEN
+        Executable supplier = () -> cryptoController.getPages(
+                currencyName1, 0, 2, minPriceValue + "," + minTimestamp, null, null);
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+    }
+
+    @Test
+    void getSummaries_duplicateAndBlankNames_Equals() {
+//        GIVEN
+        List<PairSummary> summaries = List.of(new PairSummary(currencyName1, usd, minPrice, maxPrice, 3, maxPrice));
+        Mockito.doReturn(summaries).when(currencyService)
+                .getSummariesByCurrName1(List.of(currencyName1, currencyName2));
+//        WHEN
+        ResponseEntity<List<PairSummary>> actual = cryptoController.getSummaries(
+                List.of(currencyName1, " ", currencyName2, currencyName1));
+//        THEN
+        assertEquals(summaries, actual.getBody());
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+    }
+
+    @Test
+    void getSummaries_tooManyNames_BadRequest() {
+//        GIVEN
+        List<String> names = Stream.iterate(0, i -> i + 1).limit(101)
+                .map(i -> "C" + i)
+                .collect(Collectors.toList());
+//        WHEN
+        Executable supplier = () -> cryptoController.getSummaries(names);
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+        Mockito.verifyNoInteractions(currencyService);
+    }
+
+    @Test
+    void getCandles_oneHour_Equals() {
+//        GIVEN
+        List<Candle> candles = List.of(new Candle(currencyName1, usd, CandleInterval.ONE_HOUR, minPrice));
+        Mockito.doReturn(Optional.of(candles)).when(currencyService)
+                .getCandles(currencyName1, CandleInterval.ONE_HOUR, Long.MIN_VALUE, Long.MAX_VALUE, 500);
+//        WHEN
+        ResponseEntity<List<Candle>> actual = cryptoController.getCandles(currencyName1, "1h", null, null, 0);
+//        THEN
+        assertEquals(candles, actual.getBody());
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+    }
+
+    @Test
+    void getCandles_unknownInterval_BadRequest() {
+//        GIVEN
+//        WHEN
+        Executable supplier = () -> cryptoController.getCandles(currencyName1, "2w", null, null, 500);
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+        Mockito.verifyNoInteractions(currencyService);
+    }
+
     @Test
     void getCSVReport_notEmptyDB_Equals() throws IOException {
 //        GIVEN
         String expected = String.format("%s/%s,%s,%s\n%s/%s,%s,%s",
                 currencyName1, usd, minPrice.getPrice(), maxPrice.getPrice(),
                 currencyName2, usd, medPrice.getPrice(), medPrice.getPrice());
-        Mockito.doReturn(currencyList).when(currencyService).restoreAll();
-        Mockito.doReturn(minPrice).when(currencyService).getMinPriceByCurrName1(currencyName1);
-        Mockito.doReturn(maxPrice).when(currencyService).getMaxPriceByCurrName1(currencyName1);
-        Mockito.doReturn(medPrice).when(currencyService).getMinPriceByCurrName1(currencyName2);
-        Mockito.doReturn(medPrice).when(currencyService).getMaxPriceByCurrName1(currencyName2);
+        currencyList.forEach(currency -> currency.setSummary(PriceSummary.of(currency.getPrices())));
+        Mockito.doReturn(currencyList.stream()).when(currencyService).streamAllSummaries();
+//        WHEN
+        ResponseEntity<StreamingResponseBody> actual = cryptoController.getCSVReport();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Objects.requireNonNull(actual.getBody()).writeTo(outputStream);
+//        THEN
+        assertEquals(expected, outputStream.toString(StandardCharsets.UTF_8));
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+    }
+
+    @Test
+    void getCSVReport_largeAndTinyPrices_PlainDecimals() throws IOException {
+//        GIVEN
+        String expected = String.format("%s/%s,0.00001234,12345678.5", currencyName1, usd);
+        CryptoCurrency currency = new CryptoCurrency(currencyName1, usd, List.of(
+                new Price(minTimestamp, 0.00001234), new Price(maxTimestamp, 12345678.5)));
+        currency.setSummary(PriceSummary.of(currency.getPrices()));
+        Mockito.doReturn(Stream.of(currency)).when(currencyService).streamAllSummaries();
+//        WHEN
+        ResponseEntity<StreamingResponseBody> actual = cryptoController.getCSVReport();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Objects.requireNonNull(actual.getBody()).writeTo(outputStream);
+//        THEN
+        assertEquals(expected, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void getCSVReport_currencyWithoutPrices_Equals() throws IOException {
+//        GIVEN
+        String expected = String.format("%s/%s,,", currencyName1, usd);
+        CryptoCurrency currency = new CryptoCurrency(currencyName1, usd, List.of());
+        currency.setSummary(PriceSummary.of(currency.getPrices()));
+        Mockito.doReturn(Stream.of(currency)).when(currencyService).streamAllSummaries();
 //        WHEN
-        ResponseEntity<InputStreamResource> actual = cryptoController.getCSVReport();
+        ResponseEntity<StreamingResponseBody> actual = cryptoController.getCSVReport();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Objects.requireNonNull(actual.getBody()).writeTo(outputStream);
 //        THEN
-        assertEquals(expected,
-                new String(
-                        Objects.requireNonNull(actual.getBody())
-                                .getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(expected, outputStream.toString(StandardCharsets.UTF_8));
         assertEquals(HttpStatus.OK, actual.getStatusCode());
     }
 
@@ -246,14 +375,13 @@ class CryptoControllerTest {
     void getCSVReport_emptyDB_Equals() throws IOException {
 //        GIVEN
         String expected = "";
-        Mockito.doReturn(List.of()).when(currencyService).restoreAll();
+        Mockito.doReturn(Stream.empty()).when(currencyService).streamAllSummaries();
 //        WHEN
-        ResponseEntity<InputStreamResource> actual = cryptoController.getCSVReport();
+        ResponseEntity<StreamingResponseBody> actual = cryptoController.getCSVReport();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Objects.requireNonNull(actual.getBody()).writeTo(outputStream);
 //        THEN
-        assertEquals(expected,
-                new String(
-                        Objects.requireNonNull(actual.getBody())
-                                .getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(expected, outputStream.toString(StandardCharsets.UTF_8));
         assertEquals(HttpStatus.OK, actual.getStatusCode());
     }
 }
\ No newline at end of file
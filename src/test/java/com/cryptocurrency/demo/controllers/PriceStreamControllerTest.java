@@ -0,0 +1,62 @@
+package com.cryptocurrency.demo.controllers;
+
+import com.cryptocurrency.demo.services.PriceStreamService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceStreamControllerTest {
+
+    String currencyName1 = "TEST1";
+    String currencyName2 = "TEST2";
+    PriceStreamService priceStreamService = Mockito.mock(PriceStreamService.class);
+    PriceStreamController priceStreamController = new PriceStreamController(priceStreamService);
+
+    @Test
+    void stream_duplicateAndBlankNames_Subscribed() {
+//        GIVEN
+        SseEmitter emitter = new SseEmitter();
+        Mockito.doReturn(Optional.of(emitter)).when(priceStreamService)
+                .subscribe(List.of(currencyName1, currencyName2));
+//        WHEN
+        SseEmitter actual = priceStreamController.stream(
+                List.of(currencyName1, " ", currencyName2, currencyName1 + " "));
+//        THEN
+        assertSame(emitter, actual);
+    }
+
+    @Test
+    void stream_tooManyNames_BadRequest() {
+//        GIVEN
+        List<String> names = Stream.iterate(0, i -> i + 1).limit(CryptoRequests.MAX_SUMMARY_NAMES + 1)
+                .map(i -> "C" + i)
+                .collect(Collectors.toList());
+//        WHEN
+        Executable supplier = () -> priceStreamController.stream(names);
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+        Mockito.verifyNoInteractions(priceStreamService);
+    }
+
+    @Test
+    void stream_tooManySubscribers_ServiceUnavailable() {
+//        GIVEN
+        Mockito.doReturn(Optional.empty()).when(priceStreamService).subscribe(List.of(currencyName1));
+//        WHEN
+        Executable supplier = () -> priceStreamController.stream(List.of(currencyName1));
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, actual.getStatusCode());
+    }
+}
@@ -0,0 +1,247 @@
+package com.cryptocurrency.demo.controllers;
+
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CandleInterval;
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.PairSummary;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import com.cryptocurrency.demo.exceptions.PriceException;
+import com.cryptocurrency.demo.services.ReactiveCurrencyService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveCryptoControllerTest {
+
+    String currencyName1 = "TEST1";
+    String currencyName2 = "TEST2";
+    String usd = "USD";
+    double minPriceValue = 1.0;
+    long minTimestamp = 1L;
+    long medTimestamp = 2L;
+    long maxTimestamp = 3L;
+    Price minPrice = new Price(minTimestamp, minPriceValue);
+    Price medPrice = new Price(medTimestamp, 2.0);
+    Price maxPrice = new Price(maxTimestamp, 3.0);
+    List<Price> priceList1 = List.of(minPrice, medPrice, maxPrice);
+    List<Price> priceList2 = List.of(medPrice);
+    List<CryptoCurrency> currencyList = List.of(
+            new CryptoCurrency(currencyName1, usd, priceList1),
+            new CryptoCurrency(currencyName2, usd, priceList2));
+    ReactiveCurrencyService currencyService = Mockito.mock(ReactiveCurrencyService.class);
+    ReactiveCryptoController cryptoController = new ReactiveCryptoController(currencyService);
+
+    @Test
+    void getMinPrice_comparingWithRightPrice_Equals() {
+//        GIVEN
+        Mockito.when(currencyService.getMinPriceByCurrName1(currencyName1)).thenReturn(Mono.just(minPrice));
+//        WHEN
+        ResponseEntity<Price> actual = cryptoController.getMinPrice(currencyName1, null, null).block();
+//        THEN
+        assertEquals(minPrice, Objects.requireNonNull(actual).getBody());
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+    }
+
+    @Test
+    void getMinPrice_invalidCurrency_BadRequest() {
+//        GIVEN
+        Mockito.when(currencyService.getMinPriceByCurrName1(currencyName2)).thenReturn(Mono.empty());
+//        WHEN
+        Executable supplier = () -> cryptoController.getMinPrice(currencyName2, null, null).block();
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+    }
+
+    @Test
+    void getMinPrice_currencyWithoutPrices_NotFound() {
+//        GIVEN
+        Mockito.when(currencyService.getMinPriceByCurrName1(currencyName1))
+                .thenReturn(Mono.error(new PriceException("No prices")));
+//        WHEN
+        Executable supplier = () -> cryptoController.getMinPrice(currencyName1, null, null).block();
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.NOT_FOUND, actual.getStatusCode());
+    }
+
+    @Test
+    void getMinPrice_fromOnly_Equals() {
+//        GIVEN
+        Mockito.when(currencyService.getMinPriceByCurrName1(currencyName1, medTimestamp, Long.MAX_VALUE))
+                .thenReturn(Mono.just(medPrice));
+//        WHEN
+        ResponseEntity<Price> actual = cryptoController.getMinPrice(currencyName1, medTimestamp, null).block();
+//        THEN
+        assertEquals(medPrice, Objects.requireNonNull(actual).getBody());
+    }
+
+    @Test
+    void getMaxPrice_inRange_Equals() {
+//        GIVEN
+        Mockito.when(currencyService.getMaxPriceByCurrName1(currencyName1, minTimestamp, medTimestamp))
+                .thenReturn(Mono.just(medPrice));
+//        WHEN
+        ResponseEntity<Price> actual = cryptoController.getMaxPrice(currencyName1, minTimestamp, medTimestamp)
+                .block();
+//        THEN
+        assertEquals(medPrice, Objects.requireNonNull(actual).getBody());
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+    }
+
+    @Test
+    void getMaxPrice_fromAfterTo_BadRequest() {
+//        GIVEN
+//        WHEN
+        Executable supplier = () -> cryptoController.getMaxPrice(currencyName1, maxTimestamp, minTimestamp);
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+        Mockito.verifyNoInteractions(currencyService);
+    }
+
+    @Test
+    void getPages_page0SizeMinus1_Equals() {
+//        GIVEN
+        Mockito.when(currencyService.getPricesByCurrName1Sorted(currencyName1, 0, 10))
+                .thenReturn(Mono.just(priceList1));
+//        WHEN
+        ResponseEntity<List<Price>> actual = cryptoController.getPages(currencyName1, -1, -1, null, null, null)
+                .block();
+//        THEN
+        assertEquals(priceList1, Objects.requireNonNull(actual).getBody());
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+    }
+
+    @Test
+    void getPages_afterMinPriceInRange_Equals() {
+//        GIVEN
+        Mockito.when(currencyService.getPricesByCurrName1SortedAfter(
+                        currencyName1, minTimestamp, maxTimestamp, minPrice, 2))
+                .thenReturn(Mono.just(List.of(medPrice, maxPrice)));
+//        WHEN
+        ResponseEntity<List<Price>> actual = cryptoController.getPages(
+                currencyName1, 0, 2, minPriceValue + "," + minTimestamp, minTimestamp, maxTimestamp).block();
+//        THEN
+        assertEquals(List.of(medPrice, maxPrice), Objects.requireNonNull(actual).getBody());
+    }
+
+    @Test
+    void getPages_malformedAfter_BadRequest() {
+//        GIVEN
+//        WHEN
+        Executable supplier = () -> cryptoController.getPages(
+                currencyName1, 0, 2, String.valueOf(minPriceValue), null, null);
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+        Mockito.verifyNoInteractions(currencyService);
+    }
+
+    @Test
+    void getPages_afterInvalidCurrency_BadRequest() {
+//        GIVEN
+        Mockito.when(currencyService.getPricesByCurrName1SortedAfter(currencyName1, minPrice, 2))
+                .thenReturn(Mono.empty());
+//        WHEN
+        Executable supplier = () -> cryptoController.getPages(
+                currencyName1, 0, 2, minPriceValue + "," + minTimestamp, null, null).block();
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+    }
+
+    @Test
+    void getSummaries_duplicateAndBlankNames_Equals() {
+//        GIVEN
+        List<PairSummary> summaries = List.of(new PairSummary(currencyName1, usd, minPrice, maxPrice, 3, maxPrice));
+        Mockito.when(currencyService.getSummariesByCurrName1(List.of(currencyName1, currencyName2)))
+                .thenReturn(Flux.fromIterable(summaries));
+//        WHEN
+        ResponseEntity<List<PairSummary>> actual = cryptoController.getSummaries(
+                List.of(currencyName1, " ", currencyName2, currencyName1)).block();
+//        THEN
+        assertEquals(summaries, Objects.requireNonNull(actual).getBody());
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+    }
+
+    @Test
+    void getSummaries_tooManyNames_BadRequest() {
+//        GIVEN
+        List<String> names = Stream.iterate(0, i -> i + 1).limit(101)
+                .map(i -> "C" + i)
+                .collect(Collectors.toList());
+//        WHEN
+        Executable supplier = () -> cryptoController.getSummaries(names);
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+        Mockito.verifyNoInteractions(currencyService);
+    }
+
+    @Test
+    void getCandles_oneHour_Equals() {
+//        GIVEN
+        List<Candle> candles = List.of(new Candle(currencyName1, usd, CandleInterval.ONE_HOUR, minPrice));
+        Mockito.when(currencyService.getCandles(
+                        currencyName1, CandleInterval.ONE_HOUR, Long.MIN_VALUE, Long.MAX_VALUE, 500))
+                .thenReturn(Mono.just(candles));
+//        WHEN
+        ResponseEntity<List<Candle>> actual = cryptoController.getCandles(currencyName1, "1h", null, null, 0)
+                .block();
+//        THEN
+        assertEquals(candles, Objects.requireNonNull(actual).getBody());
+    }
+
+    @Test
+    void getCandles_unknownInterval_BadRequest() {
+//        GIVEN
+//        WHEN
+        Executable supplier = () -> cryptoController.getCandles(currencyName1, "2w", null, null, 500);
+//        THEN
+        ResponseStatusException actual = assertThrows(ResponseStatusException.class, supplier);
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+        Mockito.verifyNoInteractions(currencyService);
+    }
+
+    @Test
+    void getCSVReport_notEmptyDB_Equals() {
+//        GIVEN
+        String expected = String.format("%s/%s,%s,%s\n%s/%s,%s,%s",
+                currencyName1, usd, minPrice.getPrice(), maxPrice.getPrice(),
+                currencyName2, usd, medPrice.getPrice(), medPrice.getPrice());
+        currencyList.forEach(currency -> currency.setSummary(PriceSummary.of(currency.getPrices())));
+        Mockito.when(currencyService.streamAllSummaries()).thenReturn(Flux.fromIterable(currencyList));
+//        WHEN
+        ResponseEntity<Flux<String>> actual = cryptoController.getCSVReport();
+//        THEN
+        assertEquals(expected, String.join("", Objects.requireNonNull(actual.getBody()).collectList().block()));
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertEquals("attachment;filename=csv_report.csv",
+                actual.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+    }
+
+    @Test
+    void getCSVReport_emptyDB_Equals() {
+//        GIVEN
+        Mockito.when(currencyService.streamAllSummaries()).thenReturn(Flux.empty());
+//        WHEN
+        ResponseEntity<Flux<String>> actual = cryptoController.getCSVReport();
+//        THEN
+        assertEquals(List.of(), Objects.requireNonNull(actual.getBody()).collectList().block());
+    }
+}
@@ -0,0 +1,51 @@
+package com.cryptocurrency.demo.entities;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void serialize_largePrice_PlainDecimalString() throws JsonProcessingException {
+//        GIVEN
+        Price price = new Price(1L, 12345678.5);
+//        WHEN
+        String actual = objectMapper.writeValueAsString(price);
+//        THEN
+        assertEquals("{\"tmsp\":1,\"price\":\"12345678.5\"}", actual);
+    }
+
+    @Test
+    void serialize_tinyPrice_PlainDecimalString() throws JsonProcessingException {
+//        GIVEN
+        Price price = new Price(1L, 0.00001234);
+//        WHEN
+        String actual = objectMapper.writeValueAsString(price);
+//        THEN
+        assertEquals("{\"tmsp\":1,\"price\":\"0.00001234\"}", actual);
+    }
+
+    @Test
+    void serialize_ordinaryPrice_SameAsDoubleToString() throws JsonProcessingException {
+//        GIVEN
+        Price price = new Price(1L, 41234.56);
+//        WHEN
+        String actual = objectMapper.writeValueAsString(price);
+//        THEN
+        assertEquals("{\"tmsp\":1,\"price\":\"41234.56\"}", actual);
+    }
+
+    @Test
+    void toPlainString_notFinite_DoubleToString() {
+//        GIVEN
+//        WHEN
+        String actual = Price.toPlainString(Double.NaN);
+//        THEN
+        assertEquals("NaN", actual);
+    }
+}
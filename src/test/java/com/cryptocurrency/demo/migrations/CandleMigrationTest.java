@@ -0,0 +1,86 @@
+package com.cryptocurrency.demo.migrations;
+
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.repositories.CandleRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+
+class CandleMigrationTest {
+
+    String usd = "USD";
+    Price price1 = new Price(1L, 1.0);
+    Price price2 = new Price(2L, 2.0);
+    List<CurrencyPrice> stored = List.of(
+            new CurrencyPrice("BTC", usd, price1),
+            new CurrencyPrice("BTC", usd, price2),
+            new CurrencyPrice("ETH", usd, price1));
+    MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    CandleRepository candleRepository = Mockito.mock(CandleRepository.class);
+    CandleMigration migration = new CandleMigration(mongoTemplate, candleRepository);
+
+    @Test
+    void run_twice_BackfilledOnce() {
+//        GIVEN
+        Mockito.when(mongoTemplate.exists(any(Query.class), eq(CandleMigration.MARKER_COLLECTION)))
+                .thenReturn(false, true);
+        Mockito.when(mongoTemplate.stream(any(Query.class), eq(CurrencyPrice.class)))
+                .thenAnswer(invocation -> stored.stream());
+//        WHEN
+        migration.run(null);
+        migration.run(null);
+//        THEN
+        Mockito.verify(candleRepository).deleteAll();
+        Mockito.verify(candleRepository).mergeCandles(Candle.rollup("BTC", usd, List.of(price1, price2)));
+        Mockito.verify(candleRepository).mergeCandles(Candle.rollup("ETH", usd, List.of(price1)));
+        Mockito.verify(mongoTemplate).stream(any(Query.class), eq(CurrencyPrice.class));
+        ArgumentCaptor<Document> marker = ArgumentCaptor.forClass(Document.class);
+        Mockito.verify(mongoTemplate).save(marker.capture(), eq(CandleMigration.MARKER_COLLECTION));
+        assertEquals(CandleMigration.MARKER_ID, marker.getValue().get("_id"));
+    }
+
+    @Test
+    void run_markerStored_NothingDone() {
+//        GIVEN
+        Mockito.when(mongoTemplate.exists(any(Query.class), eq(CandleMigration.MARKER_COLLECTION)))
+                .thenReturn(true);
+//        WHEN
+        migration.run(null);
+//        THEN
+        Mockito.verify(candleRepository, Mockito.never()).deleteAll();
+        Mockito.verify(candleRepository, Mockito.never()).mergeCandles(anyList());
+        Mockito.verify(mongoTemplate, Mockito.never()).stream(any(Query.class), eq(CurrencyPrice.class));
+        Mockito.verify(mongoTemplate, Mockito.never()).save(any(), any(String.class));
+    }
+
+    @Test
+    void run_interruptedBefore_CandlesRebuilt() {
+//        GIVEN
+        Mockito.when(mongoTemplate.exists(any(Query.class), eq(CandleMigration.MARKER_COLLECTION)))
+                .thenReturn(false);
+        Mockito.when(mongoTemplate.stream(any(Query.class), eq(CurrencyPrice.class)))
+                .thenAnswer(invocation -> stored.stream());
+//        WHEN
+        migration.run(null);
+//        THEN
+        ArgumentCaptor<Query> marker = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(mongoTemplate).exists(marker.capture(), eq(CandleMigration.MARKER_COLLECTION));
+        assertEquals(new Document("_id", CandleMigration.MARKER_ID), marker.getValue().getQueryObject());
+        InOrder inOrder = Mockito.inOrder(candleRepository);
+        inOrder.verify(candleRepository).deleteAll();
+        inOrder.verify(candleRepository, Mockito.times(2)).mergeCandles(anyList());
+    }
+}
@@ -0,0 +1,141 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CandleInterval;
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.cryptocurrency.demo.entities.Price;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+class CandleRepositoryCustomImplTest {
+
+    static final int DUPLICATE_KEY = 11000;
+
+    String currencyName = "TEST1";
+    String usd = "USD";
+    Candle candle1 = new Candle(currencyName, usd, CandleInterval.ONE_MINUTE, new Price(0L, 1.0));
+    Candle candle2 = new Candle(currencyName, usd, CandleInterval.ONE_MINUTE, new Price(60L, 2.0));
+    Candle candle3 = new Candle(currencyName, usd, CandleInterval.ONE_MINUTE, new Price(120L, 3.0));
+    MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    CandleRepositoryCustomImpl candleRepository = new CandleRepositoryCustomImpl(mongoTemplate);
+
+    @Test
+    void mergeCandles_replayedCandles_SkippedAsDuplicates() {
+//        GIVEN
+        BulkOperations operations = bulkOps(BulkOperations.BulkMode.UNORDERED);
+        Mockito.when(operations.execute()).thenThrow(bulkFailure(0, DUPLICATE_KEY, 0, 1));
+//        WHEN
+        long actual = candleRepository.mergeCandles(List.of(candle1, candle2));
+//        THEN
+        assertEquals(0, actual);
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(operations, Mockito.times(2)).upsert(queries.capture(), any(Update.class));
+        assertEquals(List.of(new Document("lastTmsp", new Document("$lt", 0L)),
+                        new Document("lastTmsp", new Document("$exists", false))),
+                queries.getAllValues().get(0).getQueryObject().get("$or"));
+        Mockito.verify(mongoTemplate).bulkOps(BulkOperations.BulkMode.UNORDERED, Candle.class);
+    }
+
+    @Test
+    void mergeCandles_orderedWithDuplicate_ResumedAfterIt() {
+//        GIVEN
+        BulkOperations first = Mockito.mock(BulkOperations.class);
+        BulkOperations second = Mockito.mock(BulkOperations.class);
+        Mockito.when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Candle.class))
+                .thenReturn(first, second);
+        Mockito.when(first.execute()).thenThrow(bulkFailure(1, DUPLICATE_KEY, 1));
+        Mockito.when(second.execute()).thenReturn(BulkWriteResult.acknowledged(
+                0, 0, 0, 0, List.of(new BulkWriteUpsert(0, new BsonInt32(3)))));
+//        WHEN
+        long actual = candleRepository.mergeCandles(List.of(candle1, candle2, candle3),
+                BulkOperations.BulkMode.ORDERED);
+//        THEN
+        assertEquals(2, actual);
+        Mockito.verify(first, Mockito.times(3)).upsert(any(Query.class), any(Update.class));
+        ArgumentCaptor<Query> resumed = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(second).upsert(resumed.capture(), any(Update.class));
+        assertEquals(candle3.getStart(), resumed.getValue().getQueryObject().get("start"));
+    }
+
+    @Test
+    void mergeCandles_otherFailure_Thrown() {
+//        GIVEN
+        BulkOperations operations = bulkOps(BulkOperations.BulkMode.UNORDERED);
+        Mockito.when(operations.execute()).thenThrow(bulkFailure(0, 121, 0));
+//        WHEN
+        Executable supplier = () -> candleRepository.mergeCandles(List.of(candle1));
+//        THEN
+        assertThrows(BulkOperationException.class, supplier);
+    }
+
+    @Test
+    void mergeCandles_partiallyMergedCandle_OnlyNewPricesMerged() {
+//        GIVEN
+        List<Price> prices = IntStream.rangeClosed(1, 4)
+                .mapToObj(i -> new Price((long) i, i))
+                .collect(Collectors.toList());
+        Candle stored = new Candle(currencyName, usd, CandleInterval.ONE_MINUTE, prices.get(0));
+        stored.setLastTmsp(2L);
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(Candle.class))).thenReturn(List.of(stored));
+        BulkOperations operations = bulkOps(BulkOperations.BulkMode.UNORDERED);
+        Mockito.when(operations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of()));
+        List<Candle> merged = candleRepository.findMergedSince(
+                List.of(new CurrencyPrice(currencyName, usd, prices.get(0))));
+        List<Candle> candles = Candle.rollup(currencyName, usd, prices, merged).stream()
+                .filter(candle -> candle.getInterval().equals(CandleInterval.ONE_MINUTE.getName()))
+                .collect(Collectors.toList());
+//        WHEN
+        long actual = candleRepository.mergeCandles(candles);
+//        THEN
+        assertEquals(1, actual);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(operations).upsert(query.capture(), update.capture());
+        assertEquals(new Document("lastTmsp", new Document("$lt", 3L)),
+                ((List<?>) query.getValue().getQueryObject().get("$or")).get(0));
+        assertEquals(new Document("count", 2L), update.getValue().getUpdateObject().get("$inc"));
+        assertEquals(4L, update.getValue().getUpdateObject().get("$max", Document.class).get("lastTmsp"));
+    }
+
+    private BulkOperations bulkOps(BulkOperations.BulkMode mode) {
+        BulkOperations operations = Mockito.mock(BulkOperations.class);
+        Mockito.when(mongoTemplate.bulkOps(mode, Candle.class)).thenReturn(operations);
+        return operations;
+    }
+
+    /**
+     * Builds failure of a bulk write with <i>matched</i> candles
+     * and one error of the given <i>code</i> per index.
+     */
+    private static BulkOperationException bulkFailure(int matched, int code, int... indexes) {
+        List<BulkWriteError> errors = IntStream.of(indexes)
+                .mapToObj(index -> new BulkWriteError(code, "E" + code, new BsonDocument(), index))
+                .collect(Collectors.toList());
+        BulkWriteResult result = BulkWriteResult.acknowledged(0, matched, 0, matched, List.of());
+        return new BulkOperationException("Bulk write failed",
+                new MongoBulkWriteException(result, errors, null, new ServerAddress()));
+    }
+}
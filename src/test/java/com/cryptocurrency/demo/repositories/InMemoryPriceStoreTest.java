@@ -0,0 +1,243 @@
+package com.cryptocurrency.demo.repositories;
+
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.cryptocurrency.demo.entities.Price;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+class InMemoryPriceStoreTest {
+
+    String currencyName = "TEST1";
+    String usd = "USD";
+    Price price1 = new Price(1L, 3.0);
+    Price price2 = new Price(2L, 1.0);
+    Price price3 = new Price(3L, 2.0);
+    Price price4 = new Price(4L, 3.0);
+    PriceRepository priceRepository = Mockito.mock(PriceRepository.class);
+    MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    InMemoryPriceStore store = new InMemoryPriceStore(priceRepository, mongoTemplate, Duration.ofMillis(1));
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void run_storedPrices_LoadedPerCurrency() {
+//        GIVEN
+        List<CurrencyPrice> stored = Stream.concat(
+                Stream.of(new CurrencyPrice("ETH", usd, price2)),
+                pricesOf(price1, price2, price2, price3, price4).stream()).collect(Collectors.toList());
+        Mockito.when(mongoTemplate.stream(any(Query.class), eq(CurrencyPrice.class)))
+                .thenReturn(stored.stream());
+        store.insertIgnoringDuplicates(List.of(new CurrencyPrice("ETH", usd, price3)));
+//        WHEN
+        store.run(null);
+//        THEN
+        assertEquals(List.of(price2, price3, price1, price4),
+                store.findByCurrName1OrderByPriceAscTmspAsc(currencyName, PageRequest.of(0, 10)));
+        assertEquals(List.of(price2, price3),
+                store.findByCurrName1InRange("ETH", Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void findByCurrName1OrderByPriceAscTmspAsc_secondPage_Equals() {
+//        GIVEN
+        store.insertIgnoringDuplicates(pricesOf(price1, price2, price3, price4));
+//        WHEN
+        List<Price> actual = store.findByCurrName1OrderByPriceAscTmspAsc(currencyName, PageRequest.of(1, 2));
+//        THEN
+        assertEquals(List.of(price1, price4), actual);
+    }
+
+    @Test
+    void findByCurrName1SortedAfter_equalPrices_OrderedByTmsp() {
+//        GIVEN
+        store.insertIgnoringDuplicates(pricesOf(price1, price2, price3, price4));
+//        WHEN
+        List<Price> actual = store.findByCurrName1SortedAfter(currencyName, 3.0, 1L, PageRequest.of(0, 10));
+//        THEN
+        assertEquals(List.of(price4), actual);
+    }
+
+    @Test
+    void findByCurrName1InRange_maxFirst_EarliestOfEqual() {
+//        GIVEN
+        store.insertIgnoringDuplicates(pricesOf(price1, price2, price3, price4));
+        Sort sort = Sort.by(Sort.Order.desc("price"), Sort.Order.asc("tmsp"));
+//        WHEN
+        List<Price> actual = store.findByCurrName1InRange(currencyName, 1, 4, PageRequest.of(0, 1, sort));
+//        THEN
+        assertEquals(List.of(price1), actual);
+    }
+
+    @Test
+    void findByCurrName1InRange_minInRange_Equals() {
+//        GIVEN
+        store.insertIgnoringDuplicates(pricesOf(price1, price2, price3, price4));
+//        WHEN
+        List<Price> actual = store.findByCurrName1InRange(currencyName, 3, 4,
+                PageRequest.of(0, 1, Sort.by("price", "tmsp")));
+//        THEN
+        assertEquals(List.of(price3), actual);
+    }
+
+    @Test
+    void countByCurrName1InRange_bothInclusive_Equals() {
+//        GIVEN
+        store.insertIgnoringDuplicates(pricesOf(price1, price2, price3, price4));
+//        WHEN
+        long actual = store.countByCurrName1InRange(currencyName, 2, 3);
+//        THEN
+        assertEquals(2, actual);
+    }
+
+    @Test
+    void insertIgnoringDuplicates_olderAndDuplicatePrices_Merged() {
+//        GIVEN
+        store.insertIgnoringDuplicates(pricesOf(price2, price4));
+//        WHEN
+        long actual = store.insertIgnoringDuplicates(pricesOf(price3, price1, new Price(4L, 100.0)));
+//        THEN
+        assertEquals(2, actual);
+        assertEquals(List.of(price1, price2, price3, price4),
+                store.findByCurrName1InRange(currencyName, Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 10)));
+        assertEquals(List.of(price2, price3, price1, price4),
+                store.findByCurrName1OrderByPriceAscTmspAsc(currencyName, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void insertIgnoringDuplicates_written_PersistedInBackground() {
+//        GIVEN
+        List<CurrencyPrice> prices = pricesOf(price1, price2);
+//        WHEN
+        store.insertIgnoringDuplicates(prices);
+        store.close();
+//        THEN
+        Mockito.verify(priceRepository).insertIgnoringDuplicates(prices, BulkOperations.BulkMode.UNORDERED);
+    }
+
+    @Test
+    void insertIgnoringDuplicates_writeFailedOnce_Retried() {
+//        GIVEN
+        List<CurrencyPrice> prices = pricesOf(price1, price2);
+        Mockito.when(priceRepository.insertIgnoringDuplicates(prices, BulkOperations.BulkMode.UNORDERED))
+                .thenThrow(new IllegalStateException("timeout"))
+                .thenReturn(2L);
+//        WHEN
+        store.insertIgnoringDuplicates(prices);
+        store.close();
+//        THEN
+        Mockito.verify(priceRepository, Mockito.times(2))
+                .insertIgnoringDuplicates(prices, BulkOperations.BulkMode.UNORDERED);
+        assertEquals(0, store.getLostPrices());
+        assertEquals("timeout", store.getLastWriteFailure());
+    }
+
+    @Test
+    void insertIgnoringDuplicates_afterClose_WrittenSynchronously() {
+//        GIVEN
+        List<CurrencyPrice> prices = pricesOf(price1, price2);
+        store.close();
+//        WHEN
+        long actual = store.insertIgnoringDuplicates(prices);
+//        THEN
+        assertEquals(2, actual);
+        Mockito.verify(priceRepository).insertIgnoringDuplicates(prices, BulkOperations.BulkMode.UNORDERED);
+        assertEquals(0, store.getPendingWrites());
+    }
+
+    @Test
+    void insertIgnoringDuplicates_afterCloseEveryAttemptFailed_CountedAsLost() {
+//        GIVEN
+        List<CurrencyPrice> prices = pricesOf(price1, price2);
+        Mockito.when(priceRepository.insertIgnoringDuplicates(prices, BulkOperations.BulkMode.UNORDERED))
+                .thenThrow(new IllegalStateException("timeout"));
+        store.close();
+//        WHEN
+        store.insertIgnoringDuplicates(prices);
+//        THEN
+        Mockito.verify(priceRepository, Mockito.times(InMemoryPriceStore.WRITE_ATTEMPTS))
+                .insertIgnoringDuplicates(prices, BulkOperations.BulkMode.UNORDERED);
+        assertEquals(2, store.getLostPrices());
+    }
+
+    @Test
+    void insertIgnoringDuplicates_everyAttemptFailed_CountedAsLost() {
+//        GIVEN
+        List<CurrencyPrice> prices = pricesOf(price1, price2);
+        Mockito.when(priceRepository.insertIgnoringDuplicates(prices, BulkOperations.BulkMode.UNORDERED))
+                .thenThrow(new IllegalStateException("timeout"));
+//        WHEN
+        store.insertIgnoringDuplicates(prices);
+        store.close();
+//        THEN
+        Mockito.verify(priceRepository, Mockito.times(InMemoryPriceStore.WRITE_ATTEMPTS))
+                .insertIgnoringDuplicates(prices, BulkOperations.BulkMode.UNORDERED);
+        assertEquals(prices.size(), store.getLostPrices());
+        assertEquals(0, store.getPendingWrites());
+    }
+
+    @Test
+    void insertIgnoringDuplicates_manyAppends_SameOrderAsFullSort() {
+//        GIVEN
+        Random random = new Random(42);
+        List<Price> all = new ArrayList<>();
+        for (long tmsp = 1; tmsp <= 500; ) {
+            List<Price> batch = new ArrayList<>();
+            for (int i = random.nextInt(20); i >= 0; i--)
+                batch.add(new Price(tmsp++, random.nextInt(50)));
+            all.addAll(batch);
+            store.insertIgnoringDuplicates(pricesOf(batch.toArray(Price[]::new)));
+        }
+        Comparator<Price> ascending = Comparator.comparingDouble(Price::getPrice).thenComparing(Price::getTmsp);
+        Comparator<Price> descending = Comparator.comparingDouble(Price::getPrice).reversed()
+                .thenComparing(Price::getTmsp);
+        Price after = all.stream().sorted(ascending).skip(200).findFirst().orElseThrow();
+//        WHEN
+        List<Price> actualAscending = store.findByCurrName1OrderByPriceAscTmspAsc(currencyName, PageRequest.of(3, 50));
+        List<Price> actualAfter = store.findByCurrName1SortedAfter(
+                currencyName, after.getPrice(), after.getTmsp(), PageRequest.of(0, 50));
+        List<Price> actualDescending = store.findByCurrName1InRange(currencyName, 100, 400,
+                PageRequest.of(1, 50, Sort.by(Sort.Order.desc("price"), Sort.Order.asc("tmsp"))));
+//        THEN
+        assertEquals(all.stream().sorted(ascending).skip(150).limit(50).collect(Collectors.toList()),
+                actualAscending);
+        assertEquals(all.stream().sorted(ascending).skip(201).limit(50).collect(Collectors.toList()), actualAfter);
+        assertEquals(all.stream().filter(price -> price.getTmsp() >= 100 && price.getTmsp() <= 400)
+                .sorted(descending).skip(50).limit(50).collect(Collectors.toList()), actualDescending);
+    }
+
+    @Test
+    void findByCurrName1OrderByPriceAscTmspAsc_unknownCurrency_Empty() {
+//        GIVEN
+//        WHEN
+        List<Price> actual = store.findByCurrName1OrderByPriceAscTmspAsc(currencyName, PageRequest.of(0, 10));
+//        THEN
+        assertTrue(actual.isEmpty());
+    }
+
+    private List<CurrencyPrice> pricesOf(Price... prices) {
+        return List.of(prices).stream()
+                .map(price -> new CurrencyPrice(currencyName, usd, price))
+                .collect(Collectors.toList());
+    }
+}
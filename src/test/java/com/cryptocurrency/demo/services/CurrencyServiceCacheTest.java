@@ -0,0 +1,187 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.context.IngestionProperties;
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import com.cryptocurrency.demo.repositories.CandleRepository;
+import com.cryptocurrency.demo.repositories.CurrencyRepository;
+import com.cryptocurrency.demo.repositories.PriceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@SpringJUnitConfig(CurrencyServiceCacheTest.CacheConfig.class)
+class CurrencyServiceCacheTest {
+
+    /**
+     * Not annotated with {@code @Configuration}, so the component scan of other tests skips it.
+     */
+    @EnableCaching
+    static class CacheConfig {
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                    "currencyExists", "minPrice", "maxPrice", "minPriceInRange", "maxPriceInRange", "sortedPrices");
+            cacheManager.setCacheSpecification("maximumSize=100,recordStats");
+            return cacheManager;
+        }
+
+        @Bean
+        CurrencyRepository currencyRepository() {
+            return Mockito.mock(CurrencyRepository.class);
+        }
+
+        @Bean
+        PriceRepository priceRepository() {
+            return Mockito.mock(PriceRepository.class);
+        }
+
+        @Bean
+        CandleRepository candleRepository() {
+            return Mockito.mock(CandleRepository.class);
+        }
+
+        @Bean
+        IngestionProperties ingestionProperties() {
+            return new IngestionProperties();
+        }
+
+        @Bean
+        CurrencyService currencyService(CurrencyRepository currencyRepository, PriceRepository priceRepository,
+                                        CandleRepository candleRepository, ApplicationEventPublisher eventPublisher,
+                                        IngestionProperties ingestionProperties, CacheManager cacheManager) {
+            return new CurrencyServiceImpl(currencyRepository, priceRepository, candleRepository, eventPublisher,
+                    ingestionProperties, cacheManager);
+        }
+
+        @Bean
+        CacheProbe cacheProbe(CacheManager cacheManager) {
+            return new CacheProbe(cacheManager);
+        }
+    }
+
+    /**
+     * Records whether lookups of the appended currency are still cached when
+     * {@link PricesAppendedEvent} is delivered, that is when {@link DataVersions} is bumped.
+     */
+    static class CacheProbe {
+        final CacheManager cacheManager;
+        final List<Boolean> cachedAtEvent = new ArrayList<>();
+
+        CacheProbe(CacheManager cacheManager) {
+            this.cacheManager = cacheManager;
+        }
+
+        @EventListener
+        public void onPricesAppended(PricesAppendedEvent event) {
+            cachedAtEvent.add(cacheManager.getCache("maxPrice").get(event.getCurrName1()) != null
+                    || cacheManager.getCache("sortedPrices").get(new SimpleKey(event.getCurrName1(), 0, 10)) != null);
+        }
+    }
+
+    String currencyName = "TEST1";
+    String usd = "USD";
+    Price maxPrice = new Price(1L, 3.0);
+    Price newPrice = new Price(2L, 4.0);
+
+    @Autowired
+    CacheManager cacheManager;
+    @Autowired
+    CurrencyRepository currencyRepository;
+    @Autowired
+    CurrencyService currencyService;
+    @Autowired
+    CacheProbe cacheProbe;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        Mockito.reset(currencyRepository);
+        cacheProbe.cachedAtEvent.clear();
+        CryptoCurrency summary = new CryptoCurrency(currencyName, usd);
+        summary.setSummary(PriceSummary.of(List.of(maxPrice)));
+        Mockito.when(currencyRepository.findMaxByCurrName1(currencyName)).thenReturn(Optional.of(summary));
+        Mockito.when(currencyRepository.findCountByCurrName1(currencyName)).thenReturn(Optional.of(summary));
+        Mockito.when(currencyRepository.findSummaryByCurrName1AndCurrName2(currencyName, usd))
+                .thenReturn(Optional.of(summary));
+        Mockito.when(currencyRepository.upsertSummary(eq(currencyName), eq(usd), any(PriceSummary.class)))
+                .thenReturn(summary);
+    }
+
+    @Test
+    void getMaxPriceByCurrName1_calledTwice_DatabaseQueriedOnce() {
+//        GIVEN
+//        WHEN
+        currencyService.getMaxPriceByCurrName1(currencyName);
+        Optional<Price> actual = currencyService.getMaxPriceByCurrName1(currencyName);
+//        THEN
+        assertEquals(Optional.of(maxPrice), actual);
+        Mockito.verify(currencyRepository, Mockito.times(1)).findMaxByCurrName1(currencyName);
+    }
+
+    @Test
+    void checkCurrency_calledTwice_DatabaseQueriedOnce() {
+//        GIVEN
+        Mockito.when(currencyRepository.existsByCurrName1(currencyName)).thenReturn(true);
+//        WHEN
+        currencyService.checkCurrency(currencyName);
+        boolean actual = currencyService.checkCurrency(currencyName);
+//        THEN
+        assertTrue(actual);
+        Mockito.verify(currencyRepository, Mockito.times(1)).existsByCurrName1(currencyName);
+    }
+
+    @Test
+    void appendPrices_afterLookup_CacheEvicted() {
+//        GIVEN
+        currencyService.getMaxPriceByCurrName1(currencyName);
+        currencyService.getPricesByCurrName1Sorted(currencyName, 0, 10);
+//        WHEN
+        currencyService.appendPrices(new CryptoCurrency(currencyName, usd, List.of()));
+        currencyService.getMaxPriceByCurrName1(currencyName);
+        currencyService.getPricesByCurrName1Sorted(currencyName, 0, 10);
+//        THEN
+        Mockito.verify(currencyRepository, Mockito.times(2)).findMaxByCurrName1(currencyName);
+        Mockito.verify(currencyRepository, Mockito.times(2)).findCountByCurrName1(currencyName);
+    }
+
+    @Test
+    void appendPrices_newPrice_CacheEvictedBeforeEvent() {
+//        GIVEN
+        currencyService.getMaxPriceByCurrName1(currencyName);
+        currencyService.getPricesByCurrName1Sorted(currencyName, 0, 10);
+//        WHEN
+        currencyService.appendPrices(new CryptoCurrency(currencyName, usd, List.of(newPrice)));
+//        THEN
+        assertEquals(List.of(false), cacheProbe.cachedAtEvent);
+    }
+
+    @Test
+    void bulkAppendPrices_newPrice_CacheEvictedBeforeEvent() {
+//        GIVEN
+        currencyService.getMaxPriceByCurrName1(currencyName);
+        currencyService.getPricesByCurrName1Sorted(currencyName, 0, 10);
+//        WHEN
+        currencyService.bulkAppendPrices(List.of(new CryptoCurrency(currencyName, usd, List.of(newPrice))));
+//        THEN
+        assertEquals(List.of(false), cacheProbe.cachedAtEvent);
+    }
+}
@@ -1,52 +1,318 @@
 package com.cryptocurrency.demo.services;
 
+import com.cryptocurrency.demo.context.IngestionProperties;
+import com.cryptocurrency.demo.entities.Candle;
+import com.cryptocurrency.demo.entities.CandleInterval;
 import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.CurrencyPrice;
+import com.cryptocurrency.demo.entities.PairSummary;
 import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
 import com.cryptocurrency.demo.exceptions.PriceException;
+import com.cryptocurrency.demo.repositories.CandleRepository;
 import com.cryptocurrency.demo.repositories.CurrencyRepository;
+import com.cryptocurrency.demo.repositories.PriceRepository;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mockito;
-import org.springframework.data.domain.Example;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
 
-import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 
+@ExtendWith(MockitoExtension.class)
 class CurrencyServiceImplTest {
 
     String currencyName1 = "TEST1";
     String currencyName2 = "TEST2";
     String usd = "USD";
-    String minPriceStr = "1.0";
-    String medPriceStr = "2.0";
-    String maxPriceStr = "3.0";
+    double minPriceValue = 1.0;
+    double medPriceValue = 2.0;
+    double maxPriceValue = 3.0;
     long minTimestamp = 1L;
     long medTimestamp = 2L;
     long maxTimestamp = 3L;
-    Price minPrice = new Price(minTimestamp, minPriceStr);
-    Price medPrice = new Price(medTimestamp, medPriceStr);
-    Price maxPrice = new Price(maxTimestamp, maxPriceStr);
+    Price minPrice = new Price(minTimestamp, minPriceValue);
+    Price medPrice = new Price(medTimestamp, medPriceValue);
+    Price maxPrice = new Price(maxTimestamp, maxPriceValue);
     List<Price> priceList1 = List.of(medPrice, maxPrice, minPrice);
     List<Price> priceList2 = List.of(medPrice);
     CryptoCurrency currency1 = new CryptoCurrency(currencyName1, usd, priceList1);
     CryptoCurrency currency1Empty = new CryptoCurrency(currencyName1, usd, List.of());
+    CryptoCurrency summary1 = summaryOf(currency1);
+    CryptoCurrency summary1Empty = summaryOf(currency1Empty);
     List<CryptoCurrency> currencyList = List.of(
             currency1,
             new CryptoCurrency(currencyName2, usd, priceList2));
     CurrencyRepository currencyRepository = Mockito.mock(CurrencyRepository.class);
-    CurrencyService currencyService = new CurrencyServiceImpl(currencyRepository);
+    PriceRepository priceRepository = Mockito.mock(PriceRepository.class);
+    CandleRepository candleRepository = Mockito.mock(CandleRepository.class);
+    ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+    IngestionProperties ingestionProperties = new IngestionProperties();
+    CurrencyService currencyService = new CurrencyServiceImpl(
+            currencyRepository, priceRepository, candleRepository, eventPublisher, ingestionProperties,
+            new NoOpCacheManager());
+    @Captor
+    ArgumentCaptor<List<Candle>> candlesCaptor;
+    @Captor
+    ArgumentCaptor<List<CryptoCurrency>> currenciesCaptor;
+
+    @Test
+    void appendPrices_pricesStoredByFailedAppend_CountedInSummary() {
+//        GIVEN
+        Mockito.doReturn(Optional.empty()).when(currencyRepository)
+                .findSummaryByCurrName1AndCurrName2(currencyName1, usd);
+        Mockito.doReturn(0L).when(priceRepository).insertIgnoringDuplicates(any());
+        Mockito.when(currencyRepository.upsertSummary(eq(currencyName1), eq(usd), any(PriceSummary.class)))
+                .then(invocation -> summaryOf(new CryptoCurrency(currencyName1, usd)));
+//        WHEN
+        currencyService.appendPrices(currency1);
+//        THEN
+        Mockito.verify(currencyRepository).upsertSummary(currencyName1, usd, summary1.getSummary());
+        Mockito.verify(eventPublisher).publishEvent(any(PricesAppendedEvent.class));
+    }
+
+    @Test
+    void appendPrices_newCurrency_Equals() {
+//        GIVEN
+        Mockito.doReturn(Optional.empty()).when(currencyRepository)
+                .findSummaryByCurrName1AndCurrName2(currencyName1, usd);
+        Mockito.when(currencyRepository.upsertSummary(eq(currencyName1), eq(usd), any(PriceSummary.class)))
+                .then(invocation -> summaryOf(new CryptoCurrency(currencyName1, usd)));
+//        WHEN
+        CryptoCurrency actual = currencyService.appendPrices(currency1);
+//        THEN
+        assertEquals(List.of(minPrice, medPrice, maxPrice), actual.getPrices());
+        Mockito.verify(priceRepository).insertIgnoringDuplicates(List.of(
+                new CurrencyPrice(currencyName1, usd, minPrice),
+                new CurrencyPrice(currencyName1, usd, medPrice),
+                new CurrencyPrice(currencyName1, usd, maxPrice)));
+        Mockito.verify(currencyRepository).upsertSummary(currencyName1, usd, summary1.getSummary());
+    }
+
+    @Test
+    void appendPrices_newCurrency_CandlesMerged() {
+//        GIVEN
+        Mockito.doReturn(Optional.empty()).when(currencyRepository)
+                .findSummaryByCurrName1AndCurrName2(currencyName1, usd);
+        Mockito.when(currencyRepository.upsertSummary(eq(currencyName1), eq(usd), any(PriceSummary.class)))
+                .then(invocation -> summaryOf(new CryptoCurrency(currencyName1, usd)));
+        Candle expected = new Candle(currencyName1, usd, CandleInterval.ONE_MINUTE, minPrice);
+        expected.setHigh(maxPriceValue);
+        expected.setClose(maxPriceValue);
+        expected.setCount(3);
+//        WHEN
+        currencyService.appendPrices(currency1);
+//        THEN
+        Mockito.verify(candleRepository).mergeCandles(candlesCaptor.capture());
+        assertEquals(CandleInterval.values().length, candlesCaptor.getValue().size());
+        assertEquals(expected, candlesCaptor.getValue().get(0));
+    }
+
+    @Test
+    void appendPrices_candleMergedByFailedAppend_OnlyLaterPricesMerged() {
+//        GIVEN
+        Mockito.doReturn(Optional.empty()).when(currencyRepository)
+                .findSummaryByCurrName1AndCurrName2(currencyName1, usd);
+        Mockito.when(currencyRepository.upsertSummary(eq(currencyName1), eq(usd), any(PriceSummary.class)))
+                .then(invocation -> summaryOf(new CryptoCurrency(currencyName1, usd)));
+        Candle stored = new Candle(currencyName1, usd, CandleInterval.ONE_MINUTE, minPrice);
+        stored.setLastTmsp(medTimestamp);
+        Mockito.doReturn(List.of(stored)).when(candleRepository)
+                .findMergedSince(List.of(new CurrencyPrice(currencyName1, usd, minPrice)));
+        Candle expected = new Candle(currencyName1, usd, CandleInterval.ONE_MINUTE, maxPrice);
+//        WHEN
+        currencyService.appendPrices(currency1);
+//        THEN
+        Mockito.verify(candleRepository).mergeCandles(argThat(candles -> expected.equals(candles.get(0))
+                && candles.get(0).getFirstTmsp() == maxTimestamp));
+    }
+
+    @Test
+    void appendPrices_newPrices_EventPublished() {
+//        GIVEN
+        Mockito.doReturn(Optional.empty()).when(currencyRepository)
+                .findSummaryByCurrName1AndCurrName2(currencyName1, usd);
+        Mockito.when(currencyRepository.upsertSummary(eq(currencyName1), eq(usd), any(PriceSummary.class)))
+                .then(invocation -> summaryOf(new CryptoCurrency(currencyName1, usd)));
+//        WHEN
+        currencyService.appendPrices(currency1);
+//        THEN
+        Mockito.verify(eventPublisher).publishEvent(new PricesAppendedEvent(
+                currencyName1, usd, List.of(minPrice, medPrice, maxPrice), summary1.getSummary()));
+    }
+
+    @Test
+    void appendPrices_noNewPrices_EventNotPublished() {
+//        GIVEN
+        Mockito.doReturn(Optional.of(summary1)).when(currencyRepository)
+                .findSummaryByCurrName1AndCurrName2(currencyName1, usd);
+        Mockito.when(currencyRepository.upsertSummary(eq(currencyName1), eq(usd), any(PriceSummary.class)))
+                .then(invocation -> summaryOf(new CryptoCurrency(currencyName1, usd)));
+//        WHEN
+        currencyService.appendPrices(currency1);
+//        THEN
+        Mockito.verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void appendPrices_existingCurrency_OnlyNewerAppended() {
+//        GIVEN
+        CryptoCurrency stored = summaryOf(new CryptoCurrency(currencyName1, usd, List.of(minPrice, medPrice)));
+        Mockito.doReturn(Optional.of(stored)).when(currencyRepository)
+                .findSummaryByCurrName1AndCurrName2(currencyName1, usd);
+        Mockito.when(currencyRepository.upsertSummary(eq(currencyName1), eq(usd), any(PriceSummary.class)))
+                .then(invocation -> summaryOf(new CryptoCurrency(currencyName1, usd)));
+//        WHEN
+        CryptoCurrency actual = currencyService.appendPrices(currency1);
+//        THEN
+        assertEquals(List.of(maxPrice), actual.getPrices());
+        Mockito.verify(priceRepository).insertIgnoringDuplicates(List.of(
+                new CurrencyPrice(currencyName1, usd, maxPrice)));
+        Mockito.verify(currencyRepository).upsertSummary(currencyName1, usd, summary1.getSummary());
+    }
+
+    @Test
+    void appendPrices_duplicateTimestamps_Deduplicated() {
+//        GIVEN
+        Price duplicate = new Price(maxTimestamp, minPriceValue);
+        Mockito.doReturn(Optional.empty()).when(currencyRepository)
+                .findSummaryByCurrName1AndCurrName2(currencyName1, usd);
+        Mockito.when(currencyRepository.upsertSummary(eq(currencyName1), eq(usd), any(PriceSummary.class)))
+                .then(invocation -> summaryOf(new CryptoCurrency(currencyName1, usd)));
+//        WHEN
+        CryptoCurrency actual = currencyService.appendPrices(
+                new CryptoCurrency(currencyName1, usd, List.of(maxPrice, duplicate)));
+//        THEN
+        assertEquals(List.of(maxPrice), actual.getPrices());
+    }
+
+    @Test
+    void saveList_summariesCalculated_Equals() {
+//        GIVEN
+        Mockito.doReturn(List.of()).when(currencyRepository).findFullSummariesByCurrName1In(any());
+//        WHEN
+        currencyService.saveList(currencyList);
+//        THEN
+        Mockito.verify(currencyRepository).upsertSummaries(
+                currenciesCaptor.capture(), eq(BulkOperations.BulkMode.UNORDERED));
+        PriceSummary summary = currenciesCaptor.getValue().get(0).getSummary();
+        assertEquals(minPrice, summary.getMin());
+        assertEquals(maxPrice, summary.getMax());
+        assertEquals(minPrice, summary.getFirst());
+        assertEquals(maxPrice, summary.getLast());
+        assertEquals(priceList1.size(), summary.getCount());
+    }
 
     @Test
     void saveList_saveNotEmptyList_Equals() {
 //        GIVEN
-        Mockito.doReturn(currencyList).when(currencyRepository).saveAll(currencyList);
+        Mockito.doReturn(List.of()).when(currencyRepository).findFullSummariesByCurrName1In(any());
 //        WHEN
         List<CryptoCurrency> actual = currencyService.saveList(currencyList);
 //        THEN
-        assertEquals(currencyList, actual);
+        assertEquals(
+                currencyList.stream().map(CryptoCurrency::getCurrName1).collect(Collectors.toList()),
+                actual.stream().map(CryptoCurrency::getCurrName1).collect(Collectors.toList()));
+    }
+
+    @Test
+    void bulkAppendPrices_aboveBatchSize_WrittenInBatches() {
+//        GIVEN
+        ingestionProperties.setBatchSize(2);
+        Mockito.doReturn(List.of()).when(currencyRepository).findFullSummariesByCurrName1In(any());
+        Mockito.when(priceRepository.insertIgnoringDuplicates(any(), any()))
+                .then(invocation -> (long) invocation.<List<?>>getArgument(0).size());
+//        WHEN
+        BulkWriteReport actual = currencyService.bulkAppendPrices(currencyList);
+//        THEN
+        assertTrue(actual.isSuccessful());
+        assertEquals(List.of(2, 2), actual.getBatches().stream()
+                .filter(batch -> batch.getCollection().equals("currency_price"))
+                .map(BulkWriteReport.Batch::getSize)
+                .collect(Collectors.toList()));
+        Mockito.verify(priceRepository).insertIgnoringDuplicates(List.of(
+                new CurrencyPrice(currencyName1, usd, minPrice),
+                new CurrencyPrice(currencyName1, usd, medPrice)), BulkOperations.BulkMode.UNORDERED);
+        Mockito.verify(priceRepository).insertIgnoringDuplicates(List.of(
+                new CurrencyPrice(currencyName1, usd, maxPrice),
+                new CurrencyPrice(currencyName2, usd, medPrice)), BulkOperations.BulkMode.UNORDERED);
+    }
+
+    @Test
+    void bulkAppendPrices_existingCurrency_OnlyNewerAppended() {
+//        GIVEN
+        ingestionProperties.setBulkOrdered(true);
+        CryptoCurrency stored = summaryOf(new CryptoCurrency(currencyName1, usd, List.of(minPrice, medPrice)));
+        Mockito.doReturn(List.of(stored)).when(currencyRepository).findFullSummariesByCurrName1In(any());
+//        WHEN
+        BulkWriteReport actual = currencyService.bulkAppendPrices(List.of(currency1));
+//        THEN
+        assertEquals(List.of(maxPrice), actual.getSaved().get(0).getPrices());
+        assertEquals(priceList1.size(), actual.getSaved().get(0).getSummary().getCount());
+        Mockito.verify(priceRepository).insertIgnoringDuplicates(
+                List.of(new CurrencyPrice(currencyName1, usd, maxPrice)), BulkOperations.BulkMode.ORDERED);
+    }
+
+    @Test
+    void bulkAppendPrices_pricesBatchFailed_SummaryNotWritten() {
+//        GIVEN
+        ingestionProperties.setBatchSize(3);
+        Mockito.doReturn(List.of()).when(currencyRepository).findFullSummariesByCurrName1In(any());
+        Mockito.when(priceRepository.insertIgnoringDuplicates(any(), any()))
+                .thenThrow(new IllegalStateException("failed"))
+                .thenReturn(1L);
+//        WHEN
+        BulkWriteReport actual = currencyService.bulkAppendPrices(currencyList);
+//        THEN
+        assertFalse(actual.isSuccessful());
+        assertEquals("failed", actual.getBatches().get(0).getFailure());
+        assertEquals(List.of(currencyName2), actual.getSaved().stream()
+                .map(CryptoCurrency::getCurrName1)
+                .collect(Collectors.toList()));
+        Mockito.verify(currencyRepository).upsertSummaries(currenciesCaptor.capture(), any());
+        assertEquals(List.of(currencyName2), currenciesCaptor.getValue().stream()
+                .map(CryptoCurrency::getCurrName1)
+                .collect(Collectors.toList()));
+        Mockito.verify(eventPublisher).publishEvent(new PricesAppendedEvent(
+                currencyName2, usd, priceList2, PriceSummary.of(priceList2)));
+        Mockito.verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void bulkAppendPrices_candlesBatchFailed_SummaryNotWritten() {
+//        GIVEN
+        ingestionProperties.setBatchSize(CandleInterval.values().length);
+        Mockito.doReturn(List.of()).when(currencyRepository).findFullSummariesByCurrName1In(any());
+        Mockito.when(candleRepository.mergeCandles(any(), any()))
+                .thenThrow(new IllegalStateException("failed"))
+                .thenReturn((long) CandleInterval.values().length);
+//        WHEN
+        BulkWriteReport actual = currencyService.bulkAppendPrices(currencyList);
+//        THEN
+        assertFalse(actual.isSuccessful());
+        assertEquals(List.of(currencyName2), actual.getSaved().stream()
+                .map(CryptoCurrency::getCurrName1)
+                .collect(Collectors.toList()));
+        Mockito.verify(currencyRepository).upsertSummaries(currenciesCaptor.capture(), any());
+        assertEquals(List.of(currencyName2), currenciesCaptor.getValue().stream()
+                .map(CryptoCurrency::getCurrName1)
+                .collect(Collectors.toList()));
     }
 
     @Test
@@ -59,40 +325,85 @@ class CurrencyServiceImplTest {
         assertEquals(currencyList, actual);
     }
 
+    @Test
+    void streamAllSummaries_storedSummaries_Equals() {
+//        GIVEN
+        Mockito.doReturn(Stream.of(summary1)).when(currencyRepository).streamAllSummaries();
+//        WHEN
+        List<CryptoCurrency> actual = currencyService.streamAllSummaries().collect(Collectors.toList());
+//        THEN
+        assertEquals(List.of(summary1), actual);
+    }
+
+    @Test
+    void getSummariesByCurrName1_requestedOrder_Equals() {
+//        GIVEN
+        CryptoCurrency summary2 = summaryOf(new CryptoCurrency(currencyName2, usd, priceList2));
+        Mockito.doReturn(List.of(summary1, summary2)).when(currencyRepository)
+                .findSummariesByCurrName1In(List.of(currencyName2, "MISSING", currencyName1));
+//        WHEN
+        List<PairSummary> actual = currencyService.getSummariesByCurrName1(
+                List.of(currencyName2, "MISSING", currencyName1));
+//        THEN
+        assertEquals(List.of(
+                new PairSummary(currencyName2, usd, medPrice, medPrice, 1, medPrice),
+                new PairSummary(currencyName1, usd, minPrice, maxPrice, 3, maxPrice)), actual);
+    }
+
+    @Test
+    void getSummariesByCurrName1_noNames_NotQueried() {
+//        GIVEN
+//        WHEN
+        List<PairSummary> actual = currencyService.getSummariesByCurrName1(List.of());
+//        THEN
+        assertEquals(List.of(), actual);
+        Mockito.verifyNoInteractions(currencyRepository);
+    }
+
     @Test
     void getMaxPriceByCurrName1_notEmptyPrices_Equals() {
 //        GIVEN
-        Mockito.doReturn(currency1).when(currencyRepository).findByCurrName1(currencyName1);
+        Mockito.doReturn(Optional.of(summary1)).when(currencyRepository).findMaxByCurrName1(currencyName1);
 //        WHEN
-        Price actual = currencyService.getMaxPriceByCurrName1(currencyName1);
+        Optional<Price> actual = currencyService.getMaxPriceByCurrName1(currencyName1);
 //        THEN
-        assertEquals(maxPrice, actual);
+        assertEquals(Optional.of(maxPrice), actual);
     }
 
     @Test
     void getMaxPriceByCurrName1_emptyPrices_Throws() {
 //        GIVEN
-        Mockito.doReturn(currency1Empty).when(currencyRepository).findByCurrName1(currencyName1);
+        Mockito.doReturn(Optional.of(summary1Empty)).when(currencyRepository).findMaxByCurrName1(currencyName1);
 //        WHEN
          Executable executable = () -> currencyService.getMaxPriceByCurrName1(currencyName1);
 //        THEN
         assertThrows(PriceException.class, executable);
     }
 
+    @Test
+    void getMaxPriceByCurrName1_currencyDoesNotExist_Empty() {
+//        GIVEN
+        Mockito.doReturn(Optional.empty()).when(currencyRepository).findMaxByCurrName1(currencyName1);
+//        WHEN
+        Optional<Price> actual = currencyService.getMaxPriceByCurrName1(currencyName1);
+//        THEN
+        assertEquals(Optional.empty(), actual);
+    }
+
     @Test
     void getMinPriceByCurrName1_notEmptyPrices_Equals() {
 //        GIVEN
-        Mockito.doReturn(currency1).when(currencyRepository).findByCurrName1(currencyName1);
+        Mockito.doReturn(Optional.of(summary1)).when(currencyRepository).findMinByCurrName1(currencyName1);
 //        WHEN
-        Price actual = currencyService.getMinPriceByCurrName1(currencyName1);
+        Optional<Price> actual = currencyService.getMinPriceByCurrName1(currencyName1);
 //        THEN
-        assertEquals(minPrice, actual);
+        assertEquals(Optional.of(minPrice), actual);
     }
 
     @Test
     void getMinPriceByCurrName1_emptyPrices_Throws() {
 //        GIVEN
-        Mockito.doReturn(currency1Empty).when(currencyRepository).findByCurrName1(currencyName1);
+        Mockito.doReturn(Optional.of(summary1Empty)).when(currencyRepository).findMinByCurrName1(currencyName1);
 //        WHEN
         Executable executable = () -> currencyService.getMinPriceByCurrName1(currencyName1);
 //        THEN
@@ -100,35 +411,210 @@ class CurrencyServiceImplTest {
     }
 
     @Test
-    void getPricesByCurrName1Sorted_notEmptyPrices_Equals() {
+    void getPricesByCurrName1Sorted_page0Size3FromListOfSize3_Equals() {
 //        GIVEN
-        Mockito.doReturn(currency1).when(currencyRepository).findByCurrName1(currencyName1);
+        List<Price> expected = List.of(minPrice);
+        Mockito.doReturn(Optional.of(summary1)).when(currencyRepository).findCountByCurrName1(currencyName1);
+        Mockito.doReturn(expected).when(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(0, 3));
 //        WHEN
-        List<Price> actual = currencyService.getPricesByCurrName1Sorted(currencyName1);
+        Optional<List<Price>> actual = currencyService.getPricesByCurrName1Sorted(currencyName1, 0, 3);
 //        THEN
-        assertEquals(
-                priceList1.stream()
-                        .sorted(Comparator.comparing(
-                                price -> Double.valueOf(price.getPrice())))
-                        .collect(Collectors.toList()),
-                actual);
+        assertEquals(Optional.of(expected), actual);
+        Mockito.verify(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(0, 3));
+    }
+
+    @Test
+    void getPricesByCurrName1Sorted_page1Size3FromListOfSize3_Equals() {
+//        GIVEN
+        List<Price> expected = List.of(minPrice);
+        Mockito.doReturn(Optional.of(summary1)).when(currencyRepository).findCountByCurrName1(currencyName1);
+        Mockito.doReturn(expected).when(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(0, 3));
+//        WHEN
+        Optional<List<Price>> actual = currencyService.getPricesByCurrName1Sorted(currencyName1, 1, 3);
+//        THEN
+        assertEquals(Optional.of(expected), actual);
+        Mockito.verify(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(0, 3));
+    }
+
+    @Test
+    void getPricesByCurrName1Sorted_page0Size2FromListOfSize3_Equals() {
+//        GIVEN
+        List<Price> expected = List.of(minPrice);
+        Mockito.doReturn(Optional.of(summary1)).when(currencyRepository).findCountByCurrName1(currencyName1);
+        Mockito.doReturn(expected).when(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(0, 2));
+//        WHEN
+        Optional<List<Price>> actual = currencyService.getPricesByCurrName1Sorted(currencyName1, 0, 2);
+//        THEN
+        assertEquals(Optional.of(expected), actual);
+        Mockito.verify(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(0, 2));
+    }
+
+    @Test
+    void getPricesByCurrName1Sorted_page1Size2FromListOfSize3_Equals() {
+//        GIVEN
+        List<Price> expected = List.of(minPrice);
+        Mockito.doReturn(Optional.of(summary1)).when(currencyRepository).findCountByCurrName1(currencyName1);
+        Mockito.doReturn(expected).when(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(1, 2));
+//        WHEN
+        Optional<List<Price>> actual = currencyService.getPricesByCurrName1Sorted(currencyName1, 1, 2);
+//        THEN
+        assertEquals(Optional.of(expected), actual);
+        Mockito.verify(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(1, 2));
+    }
+
+    @Test
+    void getPricesByCurrName1Sorted_page2Size2FromListOfSize3_Equals() {
+//        GIVEN
+        List<Price> expected = List.of(minPrice);
+        Mockito.doReturn(Optional.of(summary1)).when(currencyRepository).findCountByCurrName1(currencyName1);
+        Mockito.doReturn(expected).when(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(1, 2));
+//        WHEN
+        Optional<List<Price>> actual = currencyService.getPricesByCurrName1Sorted(currencyName1, 2, 2);
+//        THEN
+        assertEquals(Optional.of(expected), actual);
+        Mockito.verify(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(1, 2));
     }
 
     @Test
     void getPricesByCurrName1Sorted_emptyPrices_Equals() {
 //        GIVEN
-        Mockito.doReturn(currency1Empty).when(currencyRepository).findByCurrName1(currencyName1);
+        Mockito.doReturn(Optional.of(summary1Empty)).when(currencyRepository).findCountByCurrName1(currencyName1);
+        Mockito.doReturn(List.of()).when(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(0, 2));
 //        WHEN
-        List<Price> actual = currencyService.getPricesByCurrName1Sorted(currencyName1);
+        Optional<List<Price>> actual = currencyService.getPricesByCurrName1Sorted(currencyName1, 1, 2);
 //        THEN
-        assertEquals(List.of(), actual);
+        assertEquals(Optional.of(List.of()), actual);
+        Mockito.verify(priceRepository)
+                .findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(0, 2));
+    }
+
+    @Test
+    void getPricesByCurrName1Sorted_currencyDoesNotExist_Empty() {
+//        GIVEN
+        Mockito.doReturn(Optional.empty()).when(currencyRepository).findCountByCurrName1(currencyName1);
+//        WHEN
+        Optional<List<Price>> actual = currencyService.getPricesByCurrName1Sorted(currencyName1, 0, 2);
+//        THEN
+        assertEquals(Optional.empty(), actual);
+        Mockito.verifyNoInteractions(priceRepository);
+    }
+
+    @Test
+    void getPricesByCurrName1SortedAfter_afterMinPrice_Equals() {
+//        GIVEN
+        List<Price> expected = List.of(medPrice, maxPrice);
+        Mockito.doReturn(expected).when(priceRepository)
+                .findByCurrName1SortedAfter(currencyName1, minPriceValue, minTimestamp, PageRequest.of(0, 2));
+//        WHEN
+        Optional<List<Price>> actual = currencyService.getPricesByCurrName1SortedAfter(currencyName1, minPrice, 2);
+//        THEN
+        assertEquals(Optional.of(expected), actual);
+    }
+
+    @Test
+    void getPricesByCurrName1SortedAfter_currencyDoesNotExist_Empty() {
+//        GIVEN
+        Mockito.doReturn(List.of()).when(priceRepository)
+                .findByCurrName1SortedAfter(currencyName1, minPriceValue, minTimestamp, PageRequest.of(0, 2));
+        Mockito.doReturn(false).when(currencyRepository).existsByCurrName1(currencyName1);
+//        WHEN
+        Optional<List<Price>> actual = currencyService.getPricesByCurrName1SortedAfter(currencyName1, minPrice, 2);
+//        THEN
+        assertEquals(Optional.empty(), actual);
+    }
+
+    @Test
+    void getMinPriceByCurrName1_inRange_Equals() {
+//        GIVEN
+        Mockito.doReturn(List.of(medPrice)).when(priceRepository).findByCurrName1InRange(
+                currencyName1, medTimestamp, maxTimestamp, PageRequest.of(0, 1, Sort.by("price", "tmsp")));
+//        WHEN
+        Optional<Price> actual = currencyService.getMinPriceByCurrName1(currencyName1, medTimestamp, maxTimestamp);
+//        THEN
+        assertEquals(Optional.of(medPrice), actual);
+        Mockito.verifyNoInteractions(currencyRepository);
+    }
+
+    @Test
+    void getMaxPriceByCurrName1_noPricesInRange_Throws() {
+//        GIVEN
+        Mockito.doReturn(List.of()).when(priceRepository)
+                .findByCurrName1InRange(eq(currencyName1), eq(maxTimestamp), eq(maxTimestamp), any());
+        Mockito.doReturn(true).when(currencyRepository).existsByCurrName1(currencyName1);
+//        WHEN
+        Executable executable = () -> currencyService.getMaxPriceByCurrName1(currencyName1, maxTimestamp, maxTimestamp);
+//        THEN
+        assertThrows(PriceException.class, executable);
+    }
+
+    @Test
+    void getMaxPriceByCurrName1_inRangeCurrencyDoesNotExist_Empty() {
+//        GIVEN
+        Mockito.doReturn(List.of()).when(priceRepository)
+                .findByCurrName1InRange(eq(currencyName1), eq(minTimestamp), eq(maxTimestamp), any());
+        Mockito.doReturn(false).when(currencyRepository).existsByCurrName1(currencyName1);
+//        WHEN
+        Optional<Price> actual = currencyService.getMaxPriceByCurrName1(currencyName1, minTimestamp, maxTimestamp);
+//        THEN
+        assertEquals(Optional.empty(), actual);
+    }
+
+    @Test
+    void getPricesByCurrName1Sorted_inRangePageAboveLast_Equals() {
+//        GIVEN
+        List<Price> expected = List.of(medPrice);
+        Mockito.doReturn(2L).when(priceRepository).countByCurrName1InRange(currencyName1, minTimestamp, medTimestamp);
+        Mockito.doReturn(expected).when(priceRepository).findByCurrName1InRange(
+                currencyName1, minTimestamp, medTimestamp, PageRequest.of(1, 1, Sort.by("price", "tmsp")));
+//        WHEN
+        Optional<List<Price>> actual = currencyService.getPricesByCurrName1Sorted(
+                currencyName1, minTimestamp, medTimestamp, 5, 1);
+//        THEN
+        assertEquals(Optional.of(expected), actual);
+        Mockito.verify(priceRepository).findByCurrName1InRange(
+                currencyName1, minTimestamp, medTimestamp, PageRequest.of(1, 1, Sort.by("price", "tmsp")));
+    }
+
+    @Test
+    void getCandles_inRange_Equals() {
+//        GIVEN
+        List<Candle> expected = List.of(new Candle(currencyName1, usd, CandleInterval.ONE_HOUR, minPrice));
+        Mockito.doReturn(expected).when(candleRepository)
+                .findByCurrName1InRange(currencyName1, "1h", 0, 7200, PageRequest.of(0, 10));
+//        WHEN
+        Optional<List<Candle>> actual = currencyService.getCandles(currencyName1, CandleInterval.ONE_HOUR, 10, 7200, 10);
+//        THEN
+        assertEquals(Optional.of(expected), actual);
+    }
+
+    @Test
+    void getCandles_currencyDoesNotExist_Empty() {
+//        GIVEN
+        Mockito.doReturn(List.of()).when(candleRepository)
+                .findByCurrName1InRange(currencyName1, "1d", Long.MIN_VALUE, Long.MAX_VALUE, PageRequest.of(0, 10));
+        Mockito.doReturn(false).when(currencyRepository).existsByCurrName1(currencyName1);
+//        WHEN
+        Optional<List<Candle>> actual = currencyService.getCandles(
+                currencyName1, CandleInterval.ONE_DAY, Long.MIN_VALUE, Long.MAX_VALUE, 10);
+//        THEN
+        assertEquals(Optional.empty(), actual);
     }
 
     @Test
     void checkCurrency_exists_True() {
 //        GIVEN
-        Mockito.doReturn(true).when(currencyRepository)
-                .exists(Example.of(new CryptoCurrency(currencyName1, null)));
+        Mockito.doReturn(true).when(currencyRepository).existsByCurrName1(currencyName1);
 //        WHEN
         boolean actual = currencyService.checkCurrency(currencyName1);
 //        THEN
@@ -138,12 +624,16 @@ class CurrencyServiceImplTest {
     @Test
     void checkCurrency_doesNotExist_False() {
 //        GIVEN
-        Mockito.doReturn(false).when(currencyRepository)
-                .exists(Example.of(new CryptoCurrency(currencyName1, null)));
+        Mockito.doReturn(false).when(currencyRepository).existsByCurrName1(currencyName1);
 //        WHEN
         boolean actual = currencyService.checkCurrency(currencyName1);
 //        THEN
         assertFalse(actual);
     }
 
+    private static CryptoCurrency summaryOf(CryptoCurrency currency) {
+        CryptoCurrency summary = new CryptoCurrency(currency.getCurrName1(), currency.getCurrName2());
+        summary.setSummary(PriceSummary.of(currency.getPrices()));
+        return summary;
+    }
 }
\ No newline at end of file
@@ -1,44 +1,82 @@
 package com.cryptocurrency.demo.services;
 
 import com.cryptocurrency.demo.context.Config;
+import com.cryptocurrency.demo.context.IngestionProperties;
 import com.cryptocurrency.demo.entities.CryptoCurrency;
-import com.cryptocurrency.demo.repositories.CurrencyRepository;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
-import org.junit.runner.RunWith;
+import org.junit.jupiter.api.function.Executable;
 import org.mockito.Mockito;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
-import org.springframework.data.domain.Example;
 import org.springframework.test.context.ContextConfiguration;
-import org.springframework.test.context.junit4.SpringRunner;
 
 import java.io.IOException;
-import java.util.Optional;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 
-@RunWith(SpringRunner.class)
 @DataMongoTest
+@ImportAutoConfiguration({MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
 @ContextConfiguration(classes = {Config.class})
 class ExternalOperationsServiceImplTest {
 
+    static String response = "[{\"tmsp\": 1, \"price\": \"1.0\"}, {\"tmsp\": 2, \"price\": \"2.0\"}]";
+    static HttpServer server;
+    static ExecutorService executor = Executors.newFixedThreadPool(2);
+
     String symbol1 = "BTC";
     String symbol2 = "USD";
     String body = "{\"lastHours\": 24, \"maxRespArrSize\": 100}";
+    List<Price> prices = List.of(new Price(1L, 1.0), new Price(2L, 2.0));
     CryptoCurrency currency = new CryptoCurrency(symbol1, symbol2);
-    CurrencyRepository currencyRepository = Mockito.mock(CurrencyRepository.class);
-    ExternalOperationsService operationsService = new ExternalOperationsServiceImpl(currencyRepository);
+    CurrencyService currencyService = Mockito.mock(CurrencyService.class);
+    IngestionProperties properties = new IngestionProperties();
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ExternalOperationsService operationsService = new ExternalOperationsServiceImpl(
+            currencyService, HttpClient.newHttpClient(), executor, properties, meterRegistry);
 
     @BeforeAll
-    static void setUp() {
+    static void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/price_stats/BTC/USD", exchange -> respond(exchange, 200, false));
+        server.createContext("/price_stats/ETH/USD", exchange -> respond(exchange, 200, true));
+        server.createContext("/price_stats/XRP/USD", exchange -> respond(exchange, 500, false));
+        server.start();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        server.stop(0);
+        executor.shutdown();
     }
 
     @Test
     void fetchAndSave_returnsSameCrypto_Equals() throws IOException {
 //        GIVEN
-        Mockito.when(currencyRepository.save(any(CryptoCurrency.class))).thenReturn(currency);
-        Mockito.doReturn(Optional.of(currency)).when(currencyRepository).findOne(Example.of(currency));
+        properties.setApiUrl(apiUrl());
+        Mockito.when(currencyService.bulkAppendPrices(any())).thenReturn(new BulkWriteReport(List.of(currency), List.of()));
 //        WHEN
         CryptoCurrency actual = operationsService.fetchAndSave(symbol1, symbol2, body);
 //        THEN
@@ -48,11 +86,166 @@ class ExternalOperationsServiceImplTest {
     @Test
     void fetchAndSave_pricesListIsNotEmpty_False() throws IOException {
 //        GIVEN
-        Mockito.when(currencyRepository.save(any(CryptoCurrency.class))).thenReturn(currency);
-        Mockito.doReturn(Optional.empty()).when(currencyRepository).findOne(Example.of(currency));
+        properties.setApiUrl(apiUrl());
+        Mockito.when(currencyService.bulkAppendPrices(any())).thenReturn(new BulkWriteReport(List.of(currency), List.of()));
 //        WHEN
         CryptoCurrency actual = operationsService.fetchAndSave(symbol1, symbol2, body);
 //        THEN
         assertEquals(currency, actual);
+        Mockito.verify(currencyService).bulkAppendPrices(List.of(new CryptoCurrency(symbol1, symbol2, prices)));
+    }
+
+    @Test
+    void fetchAndSave_gzippedResponse_Equals() throws IOException {
+//        GIVEN
+        properties.setApiUrl(apiUrl());
+        Mockito.when(currencyService.bulkAppendPrices(any())).thenReturn(new BulkWriteReport(List.of(currency), List.of()));
+//        WHEN
+        operationsService.fetchAndSave("ETH", symbol2, body);
+//        THEN
+        Mockito.verify(currencyService).bulkAppendPrices(List.of(new CryptoCurrency("ETH", symbol2, prices)));
+    }
+
+    @Test
+    void fetchAndSave_responseAboveBatchSize_AppendedInBatches() throws IOException {
+//        GIVEN
+        properties.setApiUrl(apiUrl());
+        properties.setBatchSize(1);
+        Mockito.when(currencyService.bulkAppendPrices(any())).thenReturn(new BulkWriteReport(List.of(currency), List.of()));
+//        WHEN
+        operationsService.fetchAndSave(symbol1, symbol2, body);
+//        THEN
+        Mockito.verify(currencyService).bulkAppendPrices(List.of(new CryptoCurrency(symbol1, symbol2, prices.subList(0, 1))));
+        Mockito.verify(currencyService).bulkAppendPrices(List.of(new CryptoCurrency(symbol1, symbol2, prices.subList(1, 2))));
+        Mockito.verifyNoMoreInteractions(currencyService);
+    }
+
+    @Test
+    void fetchAndSave_saved_TimedAndSizeRecorded() throws IOException {
+//        GIVEN
+        properties.setApiUrl(apiUrl());
+        Mockito.when(currencyService.bulkAppendPrices(any())).thenReturn(new BulkWriteReport(List.of(currency), List.of()));
+//        WHEN
+        operationsService.fetchAndSave(symbol1, symbol2, body);
+//        THEN
+        assertEquals(1, meterRegistry.get("ingestion.fetch")
+                .tags("pair", "BTC/USD", "outcome", "success").timer().count());
+        assertEquals(response.length(), meterRegistry.get("ingestion.response.bytes")
+                .tag("pair", "BTC/USD").summary().totalAmount());
+        assertEquals(prices.size(), meterRegistry.get("ingestion.response.prices")
+                .tag("pair", "BTC/USD").summary().totalAmount());
+    }
+
+    @Test
+    void fetchAndSave_oneIngestion_AllMetersRecorded() throws IOException {
+//        GIVEN
+        properties.setApiUrl(apiUrl());
+        IngestionMetrics ingestionMetrics = new IngestionMetrics(meterRegistry);
+        Mockito.when(currencyService.bulkAppendPrices(any())).thenAnswer(invocation -> {
+            ingestionMetrics.onPricesAppended(
+                    new PricesAppendedEvent(symbol1, symbol2, prices, PriceSummary.of(prices)));
+            return new BulkWriteReport(List.of(currency), List.of(
+                    new BulkWriteReport.Batch("currency_price", 2, 2, 5, null),
+                    new BulkWriteReport.Batch("price_candle", 8, 8, 3, null),
+                    new BulkWriteReport.Batch("crypto_currency", 1, 1, 2, null)));
+        });
+//        WHEN
+        operationsService.fetchAndSave(symbol1, symbol2, body);
+//        THEN
+        Timer fetch = meterRegistry.get("ingestion.fetch")
+                .tags("pair", "BTC/USD", "outcome", "success", "exception", "none").timer();
+        assertEquals(1, fetch.count());
+        assertTrue(fetch.totalTime(TimeUnit.NANOSECONDS) > 0);
+        DistributionSummary bytes = meterRegistry.get("ingestion.response.bytes").tag("pair", "BTC/USD").summary();
+        assertEquals(1, bytes.count());
+        assertEquals(response.getBytes(StandardCharsets.UTF_8).length, bytes.totalAmount());
+        DistributionSummary parsed = meterRegistry.get("ingestion.response.prices").tag("pair", "BTC/USD").summary();
+        assertEquals(1, parsed.count());
+        assertEquals(prices.size(), parsed.totalAmount());
+        assertEquals(prices.size(), meterRegistry.get("ingestion.prices.appended")
+                .tag("pair", "BTC/USD").counter().count());
+        Timer candles = meterRegistry.get("ingestion.bulk.write")
+                .tags("collection", "price_candle", "outcome", "success").timer();
+        assertEquals(1, candles.count());
+        assertEquals(3, candles.totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(3, meterRegistry.get("ingestion.bulk.write").timers().size());
+        assertEquals(10, meterRegistry.get("ingestion.bulk.write").timers().stream()
+                .mapToDouble(timer -> timer.totalTime(TimeUnit.MILLISECONDS))
+                .sum());
+    }
+
+    @Test
+    void fetchAndSave_bulkWriteFailed_ThrowsAndTimed() {
+//        GIVEN
+        properties.setApiUrl(apiUrl());
+        Mockito.when(currencyService.bulkAppendPrices(any())).thenReturn(new BulkWriteReport(List.of(), List.of(
+                new BulkWriteReport.Batch("currency_price", 2, 2, 5, null),
+                new BulkWriteReport.Batch("price_candle", 8, 0, 5, "failed"))));
+//        WHEN
+        Executable executable = () -> operationsService.fetchAndSave(symbol1, symbol2, body);
+//        THEN
+        assertThrows(IOException.class, executable);
+        assertEquals(1, meterRegistry.get("ingestion.bulk.write")
+                .tags("collection", "currency_price", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("ingestion.bulk.write")
+                .tags("collection", "price_candle", "outcome", "failure").timer().count());
+    }
+
+    @Test
+    void fetchAndSave_errorStatus_FailureTimed() {
+//        GIVEN
+        properties.setApiUrl(apiUrl());
+//        WHEN
+        assertThrows(IOException.class, () -> operationsService.fetchAndSave("XRP", symbol2, body));
+//        THEN
+        assertEquals(1, meterRegistry.get("ingestion.fetch")
+                .tags("pair", "XRP/USD", "outcome", "failure", "exception", "IOException").timer().count());
+    }
+
+    @Test
+    void fetchAndSave_errorStatus_Throws() {
+//        GIVEN
+        properties.setApiUrl(apiUrl());
+//        WHEN
+        Executable executable = () -> operationsService.fetchAndSave("XRP", symbol2, body);
+//        THEN
+        assertThrows(IOException.class, executable);
+        Mockito.verifyNoInteractions(currencyService);
+    }
+
+    @Test
+    void fetchAndSaveAsync_returnsSameCrypto_Equals() {
+//        GIVEN
+        properties.setApiUrl(apiUrl());
+        Mockito.when(currencyService.bulkAppendPrices(any())).thenReturn(new BulkWriteReport(List.of(currency), List.of()));
+//        WHEN
+        CryptoCurrency actual = operationsService.fetchAndSaveAsync(symbol1, symbol2, body).join();
+//        THEN
+        assertEquals(currency, actual);
+    }
+
+    @Test
+    void fetchAndSaveAsync_errorStatus_Throws() {
+//        GIVEN
+        properties.setApiUrl(apiUrl());
+//        WHEN
+        Executable executable = () -> operationsService.fetchAndSaveAsync("XRP", symbol2, body).join();
+//        THEN
+        assertThrows(CompletionException.class, executable);
+    }
+
+    private static String apiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static void respond(HttpExchange exchange, int status, boolean gzip) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        if (gzip)
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(status, 0);
+        try (OutputStream os = gzip ? new GZIPOutputStream(exchange.getResponseBody()) : exchange.getResponseBody()) {
+            os.write(bytes);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,172 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.context.IngestionProperties;
+import com.cryptocurrency.demo.context.IngestionProperties.Pair;
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionSchedulerTest {
+
+    Pair pair = new Pair("BTC", "USD");
+    CryptoCurrency currency = new CryptoCurrency("BTC", "USD");
+    Duration interval = Duration.ofMinutes(1);
+    ExternalOperationsService operationsService = Mockito.mock(ExternalOperationsService.class);
+    IngestionProperties properties = new IngestionProperties();
+    IngestionScheduler scheduler = new IngestionScheduler(operationsService, properties);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    void nextDelay_noFailures_WithinJitter() {
+//        GIVEN
+        properties.setRefreshJitter(0.1);
+//        WHEN
+        Duration actual = scheduler.nextDelay(interval, 0);
+//        THEN
+        assertTrue(actual.compareTo(Duration.ofSeconds(54)) >= 0);
+        assertTrue(actual.compareTo(Duration.ofSeconds(66)) <= 0);
+    }
+
+    @Test
+    void nextDelay_twoFailures_Equals() {
+//        GIVEN
+        properties.setRefreshJitter(0);
+//        WHEN
+        Duration actual = scheduler.nextDelay(interval, 2);
+//        THEN
+        assertEquals(Duration.ofMinutes(4), actual);
+    }
+
+    @Test
+    void nextDelay_manyFailures_CappedByMaxBackoff() {
+//        GIVEN
+        properties.setRefreshJitter(0);
+        properties.setMaxBackoff(Duration.ofMinutes(10));
+//        WHEN
+        Duration actual = scheduler.nextDelay(interval, 50);
+//        THEN
+        assertEquals(Duration.ofMinutes(10), actual);
+    }
+
+    @Test
+    void nextDelay_intervalAboveMaxBackoff_Equals() {
+//        GIVEN
+        properties.setRefreshJitter(0);
+        properties.setMaxBackoff(Duration.ofSeconds(10));
+//        WHEN
+        Duration actual = scheduler.nextDelay(interval, 3);
+//        THEN
+        assertEquals(interval, actual);
+    }
+
+    @Test
+    void refresh_alreadyRunning_NotFetchedTwice() {
+//        GIVEN
+        CompletableFuture<CryptoCurrency> fetch = new CompletableFuture<>();
+        Mockito.doReturn(fetch).when(operationsService)
+                .fetchAndSaveAsync(pair.getSymbol1(), pair.getSymbol2(), properties.requestBody());
+//        WHEN
+        CompletableFuture<CryptoCurrency> first = scheduler.refresh(pair);
+        CompletableFuture<CryptoCurrency> second = scheduler.refresh(pair);
+        fetch.complete(currency);
+//        THEN
+        assertSame(first, second);
+        assertEquals(currency, first.join());
+        Mockito.verify(operationsService, Mockito.times(1))
+                .fetchAndSaveAsync(pair.getSymbol1(), pair.getSymbol2(), properties.requestBody());
+    }
+
+    @Test
+    void refresh_previousFinished_FetchedAgain() {
+//        GIVEN
+        Mockito.doReturn(CompletableFuture.completedFuture(currency)).when(operationsService)
+                .fetchAndSaveAsync(pair.getSymbol1(), pair.getSymbol2(), properties.requestBody());
+//        WHEN
+        scheduler.refresh(pair).join();
+        scheduler.refresh(pair).join();
+//        THEN
+        Mockito.verify(operationsService, Mockito.times(2))
+                .fetchAndSaveAsync(pair.getSymbol1(), pair.getSymbol2(), properties.requestBody());
+    }
+
+    @Test
+    void refresh_fetchRejected_FailedAndFetchedAgain() {
+//        GIVEN
+        Mockito.doThrow(new RejectedExecutionException()).when(operationsService)
+                .fetchAndSaveAsync(pair.getSymbol1(), pair.getSymbol2(), properties.requestBody());
+//        WHEN
+        CompletableFuture<CryptoCurrency> first = scheduler.refresh(pair);
+        CompletableFuture<CryptoCurrency> second = scheduler.refresh(pair);
+//        THEN
+        assertThrows(CompletionException.class, first::join);
+        assertNotSame(first, second);
+        Mockito.verify(operationsService, Mockito.times(2))
+                .fetchAndSaveAsync(pair.getSymbol1(), pair.getSymbol2(), properties.requestBody());
+    }
+
+    @Test
+    void start_schedulingDisabled_NothingFetched() {
+//        GIVEN
+        properties.setSchedulingEnabled(false);
+        properties.setPairs(List.of(pair));
+//        WHEN
+        scheduler.start();
+//        THEN
+        Mockito.verifyNoInteractions(operationsService);
+        assertTrue(scheduler.getWarmingUp().isEmpty());
+    }
+
+    @Test
+    void start_schedulingEnabled_WarmingUpUntilRefreshed() throws InterruptedException {
+//        GIVEN
+        CompletableFuture<CryptoCurrency> fetch = new CompletableFuture<>();
+        Mockito.doReturn(fetch).when(operationsService)
+                .fetchAndSaveAsync(pair.getSymbol1(), pair.getSymbol2(), properties.requestBody());
+        properties.setSchedulingEnabled(true);
+        properties.setPairs(List.of(pair));
+//        WHEN
+        scheduler.start();
+//        THEN
+        assertEquals(Set.of("BTC/USD"), scheduler.getWarmingUp());
+        Mockito.verify(operationsService, Mockito.timeout(1000))
+                .fetchAndSaveAsync(pair.getSymbol1(), pair.getSymbol2(), properties.requestBody());
+        fetch.complete(currency);
+        assertTrue(awaitWarmedUp());
+    }
+
+    @Test
+    void start_firstRefreshFailed_StillWarmingUp() {
+//        GIVEN
+        Mockito.doReturn(CompletableFuture.failedFuture(new IOException())).when(operationsService)
+                .fetchAndSaveAsync(pair.getSymbol1(), pair.getSymbol2(), properties.requestBody());
+        properties.setSchedulingEnabled(true);
+        properties.setPairs(List.of(pair));
+//        WHEN
+        scheduler.start();
+//        THEN
+        Mockito.verify(operationsService, Mockito.timeout(1000))
+                .fetchAndSaveAsync(pair.getSymbol1(), pair.getSymbol2(), properties.requestBody());
+        assertEquals(Set.of("BTC/USD"), scheduler.getWarmingUp());
+    }
+
+    private boolean awaitWarmedUp() throws InterruptedException {
+        for (int i = 0; i < 100 && !scheduler.getWarmingUp().isEmpty(); i++)
+            Thread.sleep(10);
+        return scheduler.getWarmingUp().isEmpty();
+    }
+}
@@ -0,0 +1,39 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.repositories.InMemoryPriceStore;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceStoreHealthIndicatorTest {
+
+    InMemoryPriceStore priceStore = Mockito.mock(InMemoryPriceStore.class);
+    PriceStoreHealthIndicator healthIndicator = new PriceStoreHealthIndicator(priceStore);
+
+    @Test
+    void health_writeRetried_Up() {
+//        GIVEN
+        Mockito.when(priceStore.getPendingWrites()).thenReturn(1);
+        Mockito.when(priceStore.getLastWriteFailure()).thenReturn("timeout");
+//        WHEN
+        Health actual = healthIndicator.health();
+//        THEN
+        assertEquals(Status.UP, actual.getStatus());
+        assertEquals(1, actual.getDetails().get("pendingWrites"));
+        assertEquals("timeout", actual.getDetails().get("lastWriteFailure"));
+    }
+
+    @Test
+    void health_pricesLost_Down() {
+//        GIVEN
+        Mockito.when(priceStore.getLostPrices()).thenReturn(2L);
+//        WHEN
+        Health actual = healthIndicator.health();
+//        THEN
+        assertEquals(Status.DOWN, actual.getStatus());
+        assertEquals(2L, actual.getDetails().get("lostPrices"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.context.StreamingProperties;
+import com.cryptocurrency.demo.context.StreamingProperties.Overflow;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceStreamServiceTest {
+
+    String currencyName1 = "TEST1";
+    String currencyName2 = "TEST2";
+    List<Price> prices = List.of(new Price(1L, 1.0));
+    PricesAppendedEvent event1 = new PricesAppendedEvent(currencyName1, "USD", prices, PriceSummary.of(prices));
+    PricesAppendedEvent event2 = new PricesAppendedEvent(currencyName2, "USD", prices, PriceSummary.of(prices));
+    StreamingProperties properties = new StreamingProperties();
+    PriceStreamService priceStreamService;
+
+    @AfterEach
+    void tearDown() {
+        priceStreamService.stop();
+    }
+
+    @Test
+    void onPricesAppended_subscribedCurrency_Sent() throws InterruptedException {
+//        GIVEN
+        priceStreamService = new PriceStreamService(properties);
+        BlockingEmitter emitter = new BlockingEmitter(new CountDownLatch(0));
+        priceStreamService.register(emitter, List.of(currencyName1));
+//        WHEN
+        priceStreamService.onPricesAppended(event1);
+//        THEN
+        assertTrue(emitter.sent.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void onPricesAppended_otherCurrency_NotSent() throws InterruptedException {
+//        GIVEN
+        priceStreamService = new PriceStreamService(properties);
+        BlockingEmitter emitter = new BlockingEmitter(new CountDownLatch(0));
+        priceStreamService.register(emitter, List.of(currencyName1));
+//        WHEN
+        priceStreamService.onPricesAppended(event2);
+//        THEN
+        assertFalse(emitter.sent.await(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void onPricesAppended_bufferFullDropOldest_Dropped() throws InterruptedException {
+//        GIVEN
+        properties.setBufferSize(2);
+        priceStreamService = new PriceStreamService(properties);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingEmitter emitter = new BlockingEmitter(release);
+        PriceStreamService.Subscriber subscriber = priceStreamService.register(emitter, Set.of(currencyName1)).orElseThrow();
+        priceStreamService.onPricesAppended(event1);
+        assertTrue(emitter.sent.await(1, TimeUnit.SECONDS));
+//        WHEN
+        for (int i = 0; i < 3; i++)
+            priceStreamService.onPricesAppended(event1);
+//        THEN
+        assertEquals(1, subscriber.getDropped());
+        assertEquals(1, priceStreamService.subscriberCount(currencyName1));
+        release.countDown();
+    }
+
+    @Test
+    void onPricesAppended_bufferFullDisconnect_Unsubscribed() throws InterruptedException {
+//        GIVEN
+        properties.setBufferSize(2);
+        properties.setOverflow(Overflow.DISCONNECT);
+        priceStreamService = new PriceStreamService(properties);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingEmitter emitter = new BlockingEmitter(release);
+        priceStreamService.register(emitter, Set.of(currencyName1));
+        priceStreamService.onPricesAppended(event1);
+        assertTrue(emitter.sent.await(1, TimeUnit.SECONDS));
+//        WHEN
+        for (int i = 0; i < 3; i++)
+            priceStreamService.onPricesAppended(event1);
+//        THEN
+        assertEquals(0, priceStreamService.subscriberCount(currencyName1));
+        assertEquals(0, priceStreamService.subscriberCount());
+        release.countDown();
+    }
+
+    @Test
+    void register_maxSubscribersOpen_Rejected() {
+//        GIVEN
+        properties.setMaxSubscribers(2);
+        priceStreamService = new PriceStreamService(properties);
+        priceStreamService.register(new SseEmitter(), List.of(currencyName1));
+        priceStreamService.register(new SseEmitter(), List.of(currencyName2));
+//        WHEN
+        Optional<PriceStreamService.Subscriber> actual =
+                priceStreamService.register(new SseEmitter(), List.of(currencyName1));
+//        THEN
+        assertTrue(actual.isEmpty());
+        assertEquals(2, priceStreamService.subscriberCount());
+        assertEquals(1, priceStreamService.subscriberCount(currencyName1));
+    }
+
+    @Test
+    void register_subscriberDisconnected_SlotFreed() {
+//        GIVEN
+        properties.setMaxSubscribers(1);
+        properties.setBufferSize(1);
+        properties.setOverflow(Overflow.DISCONNECT);
+        priceStreamService = new PriceStreamService(properties);
+        CountDownLatch release = new CountDownLatch(1);
+        priceStreamService.register(new BlockingEmitter(release), List.of(currencyName1)).orElseThrow();
+        for (int i = 0; i < 3; i++)
+            priceStreamService.onPricesAppended(event1);
+//        WHEN
+        Optional<PriceStreamService.Subscriber> actual =
+                priceStreamService.register(new SseEmitter(), List.of(currencyName1));
+//        THEN
+        assertTrue(actual.isPresent());
+        assertEquals(1, priceStreamService.subscriberCount());
+        release.countDown();
+    }
+
+    /**
+     * Emitter recording the first send and blocking every send until released.
+     */
+    static class BlockingEmitter extends SseEmitter {
+        final CountDownLatch sent = new CountDownLatch(1);
+        final CountDownLatch release;
+
+        BlockingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sent.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.entities.CryptoCurrency;
+import com.cryptocurrency.demo.entities.PairSummary;
+import com.cryptocurrency.demo.entities.Price;
+import com.cryptocurrency.demo.entities.PriceSummary;
+import com.cryptocurrency.demo.exceptions.PriceException;
+import com.cryptocurrency.demo.repositories.ReactiveCandleRepository;
+import com.cryptocurrency.demo.repositories.ReactiveCurrencyRepository;
+import com.cryptocurrency.demo.repositories.ReactivePriceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+class ReactiveCurrencyServiceImplTest {
+
+    String currencyName1 = "TEST1";
+    String currencyName2 = "TEST2";
+    String usd = "USD";
+    Price minPrice = new Price(1L, 1.0);
+    Price maxPrice = new Price(3L, 3.0);
+    ReactiveCurrencyRepository currencyRepository = Mockito.mock(ReactiveCurrencyRepository.class);
+    ReactivePriceRepository priceRepository = Mockito.mock(ReactivePriceRepository.class);
+    ReactiveCandleRepository candleRepository = Mockito.mock(ReactiveCandleRepository.class);
+    ReactiveCurrencyService currencyService = new ReactiveCurrencyServiceImpl(
+            currencyRepository, priceRepository, candleRepository);
+
+    @Test
+    void getMinPriceByCurrName1_existingCurrency_Equals() {
+//        GIVEN
+        Mockito.when(currencyRepository.findMinByCurrName1(currencyName1))
+                .thenReturn(Mono.just(summaryOf(currencyName1, minPrice, maxPrice)));
+//        WHEN
+        Price actual = currencyService.getMinPriceByCurrName1(currencyName1).block();
+//        THEN
+        assertEquals(minPrice, actual);
+    }
+
+    @Test
+    void getMaxPriceByCurrName1_unknownCurrency_Empty() {
+//        GIVEN
+        Mockito.when(currencyRepository.findMaxByCurrName1(currencyName1)).thenReturn(Mono.empty());
+//        WHEN
+        Price actual = currencyService.getMaxPriceByCurrName1(currencyName1).block();
+//        THEN
+        assertNull(actual);
+    }
+
+    @Test
+    void getMaxPriceByCurrName1_noPrices_Throws() {
+//        GIVEN
+        Mockito.when(currencyRepository.findMaxByCurrName1(currencyName1))
+                .thenReturn(Mono.just(new CryptoCurrency(currencyName1, usd)));
+//        WHEN
+        Executable executable = () -> currencyService.getMaxPriceByCurrName1(currencyName1).block();
+//        THEN
+        assertThrows(PriceException.class, executable);
+    }
+
+    @Test
+    void getMinPriceByCurrName1InRange_noPricesInRange_Throws() {
+//        GIVEN
+        Mockito.when(priceRepository.findByCurrName1InRange(
+                currencyName1, 5L, 6L, PageRequest.of(0, 1, Sort.by("price", "tmsp")))).thenReturn(Flux.empty());
+        Mockito.when(currencyRepository.existsByCurrName1(currencyName1)).thenReturn(Mono.just(true));
+//        WHEN
+        Executable executable = () -> currencyService.getMinPriceByCurrName1(currencyName1, 5L, 6L).block();
+//        THEN
+        assertThrows(PriceException.class, executable);
+    }
+
+    @Test
+    void getPricesByCurrName1Sorted_pageAboveLast_LastPage() {
+//        GIVEN
+        CryptoCurrency counted = summaryOf(currencyName1, minPrice, maxPrice);
+        Mockito.when(currencyRepository.findCountByCurrName1(currencyName1)).thenReturn(Mono.just(counted));
+        Mockito.when(priceRepository.findByCurrName1OrderByPriceAscTmspAsc(currencyName1, PageRequest.of(1, 1)))
+                .thenReturn(Flux.just(maxPrice));
+//        WHEN
+        List<Price> actual = currencyService.getPricesByCurrName1Sorted(currencyName1, 5, 1).block();
+//        THEN
+        assertEquals(List.of(maxPrice), actual);
+    }
+
+    @Test
+    void getPricesByCurrName1SortedAfter_unknownCurrency_Empty() {
+//        GIVEN
+        Mockito.when(priceRepository.findByCurrName1SortedAfter(
+                currencyName1, minPrice.getPrice(), minPrice.getTmsp(), PageRequest.of(0, 10)))
+                .thenReturn(Flux.empty());
+        Mockito.when(currencyRepository.existsByCurrName1(currencyName1)).thenReturn(Mono.just(false));
+//        WHEN
+        List<Price> actual = currencyService.getPricesByCurrName1SortedAfter(currencyName1, minPrice, 10).block();
+//        THEN
+        assertNull(actual);
+    }
+
+    @Test
+    void getSummariesByCurrName1_requestedOrder_Equals() {
+//        GIVEN
+        CryptoCurrency first = summaryOf(currencyName1, minPrice, maxPrice);
+        CryptoCurrency second = summaryOf(currencyName2, minPrice, minPrice);
+        Mockito.when(currencyRepository.findSummariesByCurrName1In(any())).thenReturn(Flux.just(first, second));
+//        WHEN
+        List<PairSummary> actual = currencyService.getSummariesByCurrName1(List.of(currencyName2, currencyName1))
+                .collectList().block();
+//        THEN
+        assertEquals(List.of(PairSummary.of(second), PairSummary.of(first)), actual);
+    }
+
+    private CryptoCurrency summaryOf(String currName1, Price... prices) {
+        CryptoCurrency currency = new CryptoCurrency(currName1, usd);
+        currency.setSummary(PriceSummary.of(List.of(prices)));
+        return currency;
+    }
+}
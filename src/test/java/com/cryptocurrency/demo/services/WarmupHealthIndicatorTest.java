@@ -0,0 +1,56 @@
+package com.cryptocurrency.demo.services;
+
+import com.cryptocurrency.demo.repositories.CurrencyRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarmupHealthIndicatorTest {
+
+    IngestionScheduler scheduler = Mockito.mock(IngestionScheduler.class);
+    CurrencyRepository currencyRepository = Mockito.mock(CurrencyRepository.class);
+    WarmupHealthIndicator healthIndicator = new WarmupHealthIndicator(scheduler, currencyRepository);
+
+    @Test
+    void health_warmedUp_Up() {
+//        GIVEN
+        Mockito.when(scheduler.getWarmingUp()).thenReturn(Set.of());
+//        WHEN
+        Health actual = healthIndicator.health();
+//        THEN
+        assertEquals(Status.UP, actual.getStatus());
+        assertEquals("READY", actual.getDetails().get("state"));
+        Mockito.verifyNoInteractions(currencyRepository);
+    }
+
+    @Test
+    void health_warmingUpWithStoredData_Up() {
+//        GIVEN
+        Mockito.when(scheduler.getWarmingUp()).thenReturn(Set.of("BTC/USD"));
+        Mockito.when(currencyRepository.count()).thenReturn(3L);
+//        WHEN
+        healthIndicator.health();
+        Health actual = healthIndicator.health();
+//        THEN
+        assertEquals(Status.UP, actual.getStatus());
+        assertEquals("WARMING", actual.getDetails().get("state"));
+        Mockito.verify(currencyRepository, Mockito.times(1)).count();
+    }
+
+    @Test
+    void health_warmingUpWithoutData_OutOfService() {
+//        GIVEN
+        Mockito.when(scheduler.getWarmingUp()).thenReturn(Set.of("BTC/USD"));
+        Mockito.when(currencyRepository.count()).thenReturn(0L);
+//        WHEN
+        Health actual = healthIndicator.health();
+//        THEN
+        assertEquals(Status.OUT_OF_SERVICE, actual.getStatus());
+        assertEquals(Set.of("BTC/USD"), actual.getDetails().get("pending"));
+    }
+}